@@ -1,8 +1,15 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
 
 /**
  * Class for handling input from a file.
  * 
+ * Files are read in bulk, straight into the array returned, so that
+ * reading costs a handful of system calls rather than one per byte.
+ * 
  * David Manlove, Jan 02. Modified Jan 09.
  */
 public class FileInput {
@@ -25,34 +32,67 @@ public class FileInput {
 	 * @return the data in the file represented as an array of bytes
 	 */
 	public byte [] readFile () {
+		return readFile(0);
+	}
 
-		byte [] s = null; // store data from input file as an array of bytes,
-		                  // since a variable of type char uses 2 bytes
-		FileInputStream inputStream = null;
+	/**
+	 * Read bytes of data from the file into an array with room for extra
+	 * bytes after the data, so that a termination character may be added
+	 * without copying the data again (see SuffixTree(byte[], int,
+	 * BuildMethod, boolean), which may take over such an array).
+	 * 
+	 * @param extra the number of unused bytes to leave after the data
+	 * @return an array of bytes holding the data in the file at positions
+	 * 0 to length-extra-1
+	 */
+	public byte [] readFile (int extra) {
 		try {
-			try {
-				// open input file, read data
-				inputStream = new FileInputStream(fileName);
-				int len = inputStream.available();
-				s = new byte[len];
-				int index = 0;
-				byte next = (byte) inputStream.read();   // read a byte, represented by an int
-				while (next != -1) {                     // -1 represents end of file
-					s[index] = next;                     // store byte in array
-					next = (byte) inputStream.read();    // read the next byte
-					index++;
-				}
-			}
-			finally {
-				// executed whether or not an exception is raised above
-				// close file assuming it was successfully opened
-				if (inputStream  != null) inputStream.close();
-			}
+			return read(extra);
 		}
 		catch (IOException e) {
-			System.out.println(e); 
+			System.out.println(e);
 			System.exit(-1);
 		}
+		return null;
+	}
+
+	/**
+	 * Read bytes of data from the file as readFile(int) does, but report a
+	 * file that cannot be read by throwing an exception rather than by
+	 * exiting, so that the caller may carry on.
+	 * 
+	 * @param extra the number of unused bytes to leave after the data
+	 * @return an array of bytes holding the data in the file at positions
+	 * 0 to length-extra-1
+	 * @throws IOException if the file cannot be read
+	 */
+	public byte [] read (int extra) throws IOException {
+
+		byte [] s = null; // store data from input file as an array of bytes,
+		                  // since a variable of type char uses 2 bytes
+		Path path = Paths.get(fileName);
+		if (extra == 0)
+			return Files.readAllBytes(path);
+
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8 - extra)
+				throw new IOException(fileName + " is too large to be read into an array");
+			int len = (int) size;
+			s = new byte[len + extra];
+
+			// read the data in bulk, allowing for short reads
+			ByteBuffer buffer = ByteBuffer.wrap(s, 0, len);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+				;
+			if (buffer.hasRemaining())   // the file has shrunk since its size was taken
+				s = Arrays.copyOf(s, buffer.position() + extra);
+		}
+		finally {
+			// executed whether or not an exception is raised above
+			channel.close();
+		}
 		return s;
 	}
 }
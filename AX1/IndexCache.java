@@ -0,0 +1,222 @@
+import java.io.*;
+import java.util.*;
+import SuffixTreePackage.*;
+
+/**
+ * Class for keeping the indexes built for text files between tasks, so
+ * that asking several questions of the same file builds its index once.
+ * 
+ * Entries are keyed by the canonical path, modification time and size of
+ * each file indexed, so that an edited file is indexed afresh.  Each
+ * entry carries an estimate of the memory it occupies; when the total
+ * exceeds the budget the least recently used entries are evicted.
+ */
+public class IndexCache {
+
+	/** Default budget, in bytes. */
+	public static final long DEFAULT_BUDGET = 512L << 20;
+
+	/**
+	 * An index together with the text it was built from.
+	 */
+	public static class Entry {
+
+		/** The index. */
+		private TextIndex index;
+
+		/** The contents of the (first) text file. */
+		private byte [] text;
+
+		/** Estimated size of the index and text in bytes. */
+		private long size;
+
+		/**
+		 * Constructor with parameters.
+		 * 
+		 * @param indexIn the index
+		 * @param textIn the contents of the (first) text file (null if the index does not hold them)
+		 * @param sizeIn the estimated size of the index and text in bytes
+		 */
+		public Entry (TextIndex indexIn, byte [] textIn, long sizeIn) {
+			index = indexIn;
+			text = textIn;
+			size = sizeIn;
+		}
+
+		/**
+		 * Gets the index.
+		 * 
+		 * @return the index
+		 */
+		public TextIndex getIndex() { return index; }
+
+		/**
+		 * Gets the contents of the (first) text file, if the entry holds them.
+		 * 
+		 * @return the contents of the (first) text file (null for an index that
+		 * reads its text from disk, such as a stored or external index)
+		 */
+		public byte[] getText() { return text; }
+
+		/**
+		 * Gets the estimated size of the index and text.
+		 * 
+		 * @return the estimated size of the index and text in bytes
+		 */
+		public long getSize() { return size; }
+	}
+
+	/** Entries in order of access, least recently used first. */
+	private LinkedHashMap<String, Entry> entries;
+
+	/** Maximum total estimated size of the entries, in bytes. */
+	private long budget;
+
+	/** Total estimated size of the entries, in bytes. */
+	private long used;
+
+	/** Numbers of lookups that found and did not find an entry, and of entries evicted. */
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Default constructor.
+	 */
+	public IndexCache () {
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Constructor with parameter.
+	 * 
+	 * @param budgetIn the maximum total estimated size of the entries in
+	 * bytes (0 to disable caching)
+	 */
+	public IndexCache (long budgetIn) {
+		budget = budgetIn;
+		entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	}
+
+	/**
+	 * Makes the key for an index of the given kind of one or more files.
+	 * The key is the kind followed, for each file, by its canonical path,
+	 * modification time and length, separated by NUL characters, so that
+	 * the same file named by different paths shares an entry and an edited
+	 * file does not.
+	 * 
+	 * @param kind the kind of index, e.g. "tree"
+	 * @param fileNames the names of the files indexed
+	 * @return the key, or null if some file does not exist
+	 */
+	public static String key(String kind, String... fileNames) {
+		StringBuilder key = new StringBuilder(kind);
+		for (String fileName : fileNames) {
+			File f = new File(fileName);
+			if (!f.isFile())
+				return null;
+			try {
+				key.append('\0').append(f.getCanonicalPath());
+			}
+			catch (IOException e) {
+				key.append('\0').append(f.getAbsolutePath());
+			}
+			key.append('\0').append(f.lastModified()).append('\0').append(f.length());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Looks up an entry, marking it as the most recently used.
+	 * 
+	 * @param key the key of the entry (may be null)
+	 * @return the entry, or null if there is none
+	 */
+	public Entry get(String key) {
+		Entry e = key == null ? null : entries.get(key);
+		if (e == null)
+			misses++;
+		else
+			hits++;
+		return e;
+	}
+
+	/**
+	 * Adds an entry, evicting the least recently used entries until the
+	 * total estimated size is within the budget.  An entry larger than the
+	 * whole budget is not kept.
+	 * 
+	 * @param key the key of the entry (may be null, in which case nothing is kept)
+	 * @param e the entry
+	 */
+	public void put(String key, Entry e) {
+		if (key == null || e.getSize() > budget)
+			return;
+		Entry old = entries.put(key, e);
+		if (old != null)
+			used -= old.getSize();
+		used += e.getSize();
+
+		Iterator<Entry> i = entries.values().iterator();
+		while (used > budget && i.hasNext()) {
+			Entry victim = i.next();
+			if (victim == e)
+				continue;
+			i.remove();
+			used -= victim.getSize();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Gets the number of lookups that found an entry.
+	 * 
+	 * @return the number of hits
+	 */
+	public long getHits() { return hits; }
+
+	/**
+	 * Gets the number of lookups that found no entry.
+	 * 
+	 * @return the number of misses
+	 */
+	public long getMisses() { return misses; }
+
+	/**
+	 * Gets the number of entries evicted to keep within the budget.
+	 * 
+	 * @return the number of evictions
+	 */
+	public long getEvictions() { return evictions; }
+
+	/**
+	 * Gets the number of entries held.
+	 * 
+	 * @return the number of entries
+	 */
+	public int getEntryCount() { return entries.size(); }
+
+	/**
+	 * Gets the total estimated size of the entries held.
+	 * 
+	 * @return the total estimated size in bytes
+	 */
+	public long getUsed() { return used; }
+
+	/**
+	 * Gets the maximum total estimated size of the entries.
+	 * 
+	 * @return the budget in bytes (0 if caching is disabled)
+	 */
+	public long getBudget() { return budget; }
+
+	/**
+	 * Summarises the use of the cache.
+	 * 
+	 * @return a one-line summary
+	 */
+	public String toString() {
+		return String.format("Index cache: %d hits, %d misses, %d evictions, %d entries using about %d of %d MB",
+				hits, misses, evictions, entries.size(), used >> 20, budget >> 20);
+	}
+}
@@ -1,3 +1,4 @@
+import java.io.*;
 import java.util.*;
 import SuffixTreePackage.*;
 
@@ -8,29 +9,108 @@ import SuffixTreePackage.*;
 
 public class Main {
 
+	/** Number of patterns read from a query file and searched for at a time. */
+	static final int BATCH_SIZE = 1 << 16;
+
+	/** Size of the buffers through which query files are read and results written. */
+	static final int BATCH_BUFFER = 1 << 16;
+
 	/**
 	 * The main method.
-	 * @param args the arguments
+	 * @param args the arguments: optionally "-index tree" (the default),
+	 * "-index flat", "-index stored", "-index array", "-index fm" or "-index
+	 * external" to select the index structure used, optionally "-build naive", "-build ukkonen" (the
+	 * default) or "-build parallel" to select how suffix trees are built, and
+	 * optionally "-cache n" to keep up to about n MB of indexes between tasks
+	 * (0 to rebuild the index for every task), and optionally "-lcs stream"
+	 * to find an LCS in Task 4 from the suffix tree of the smaller file
+	 * alone, reading the larger file as a stream; optionally "-batch file"
+	 * to answer the queries in a file rather than from standard input (see
+	 * runBatch), with "-text file" to search every line of it as a pattern
+	 * in the one text file and "-out file" to write the results to a file;
+	 * if run with -Dsuffixtree.stats=true, the statistics collected (see
+	 * Stats) are printed on quitting
 	 */
 	public static void main(String args[]) {
 
 		boolean debug = true;
-		SuffixTree t;
-		SuffixTreeAppl a;
+		BuildMethod method = BuildMethod.UKKONEN;
+		String index = "tree";
+		boolean streamLcs = false;
+		String batchFile = null;
+		String batchText = null;
+		String batchOut = null;
+		TextIndex a;
+		IndexCache cache;
+		IndexCache.Entry entry;
+		long budget = IndexCache.DEFAULT_BUDGET;
 		
 		String fileName1;
 		String fileName2;
 		String searchStr;
 		
 		byte[] sWordBytes;
-		byte[] file1Contents;
-		byte[] file2Contents;
 		byte[] text;
 		
-		FileInput f1;
-		FileInput f2;
 		Scanner standardInput = new Scanner(System.in);
 		
+		for (int i = 0; i < args.length; i++)
+			if (args[i].equals("-index") && i + 1 < args.length)
+				index = args[++i];
+			else if (args[i].equals("-build") && i + 1 < args.length) {
+				try {
+					method = BuildMethod.valueOf(args[++i].toUpperCase());
+				}
+				catch (IllegalArgumentException e) {
+					System.out.println("The build method must be either 'naive', 'ukkonen' or 'parallel'.");
+					System.exit(-1);
+				}
+			}
+			else if (args[i].equals("-cache") && i + 1 < args.length) {
+				try {
+					budget = Long.parseLong(args[++i]) << 20;
+				}
+				catch (NumberFormatException e) {
+					budget = -1;
+				}
+				if (budget < 0) {
+					System.out.println("The cache size must be a number of megabytes.");
+					System.exit(-1);
+				}
+			}
+			else if (args[i].equals("-lcs") && i + 1 < args.length) {
+				String mode = args[++i];
+				if (!mode.equals("stream") && !mode.equals("generalised")) {
+					System.out.println("The LCS mode must be either 'generalised' or 'stream'.");
+					System.exit(-1);
+				}
+				streamLcs = mode.equals("stream");
+			}
+			else if (args[i].equals("-batch") && i + 1 < args.length)
+				batchFile = args[++i];
+			else if (args[i].equals("-text") && i + 1 < args.length)
+				batchText = args[++i];
+			else if (args[i].equals("-out") && i + 1 < args.length)
+				batchOut = args[++i];
+		if (!index.equals("tree") && !index.equals("flat") && !index.equals("stored")
+				&& !index.equals("array") && !index.equals("fm") && !index.equals("external")) {
+			System.out.println("The index must be either 'tree', 'flat', 'stored', 'array', 'fm' or 'external'.");
+			System.exit(-1);
+		}
+		if (batchFile == null && (batchText != null || batchOut != null)) {
+			System.out.println("The options -text and -out are for use with -batch only.");
+			System.exit(-1);
+		}
+		cache = new IndexCache(budget);
+		
+		if (batchFile != null) {
+			runBatch(cache, index, method, streamLcs, batchFile, batchText, batchOut);
+			if (Stats.ENABLED)
+				System.out.print(Stats.dump());
+			standardInput.close();
+			return;
+		}
+		
 		do {   
 			// display prompt for user
 			System.out.println();
@@ -53,11 +133,8 @@ public class Main {
 						searchStr = standardInput.nextLine();
 						sWordBytes = searchStr.getBytes();
 						
-						f1 = new FileInput(fileName1);
-						file1Contents = f1.readFile();
-						
-						t = new SuffixTree(file1Contents);
-						a = new SuffixTreeAppl(t);
+						entry = openIndex(cache, index, method, fileName1);
+						a = entry.getIndex();
 						Task1Info t1Result = a.searchSuffixTree(sWordBytes);
 						
 						if( t1Result.getPos() < 0 )
@@ -84,25 +161,23 @@ public class Main {
 						searchStr = standardInput.nextLine();
 						sWordBytes = searchStr.getBytes();
 						
-						f1 = new FileInput(fileName1);
-						file1Contents = f1.readFile();
-						
-						t = new SuffixTree(file1Contents);
-						a = new SuffixTreeAppl(t);
+						entry = openIndex(cache, index, method, fileName1);
+						a = entry.getIndex();
 						Task2Info t2Result = a.allOccurrences(sWordBytes);
-						LinkedList<Integer> l = t2Result.getPositions();
+						long[] l = t2Result.getPositionArray();
 						
-						if( l.size() < 1 )
+						if( l.length < 1 )
 							System.out.printf("Search string \"%s\" does not occur in %s\n",
 									searchStr, fileName1);
 						else{
 							System.out.printf("The string \"%s\" occurs in %s at positions:\n",
 									searchStr, fileName1);
 							
-							Iterator<Integer> i = l.iterator();
-							while( i.hasNext() )
-								System.out.println( (int)i.next() );
-							System.out.printf("The total number of occurrances is %d\n", l.size());
+							StringBuilder out = new StringBuilder();
+							for( int i = 0; i < l.length; i++ )
+								out.append( l[i] ).append( '\n' );
+							System.out.print( out );
+							System.out.printf("The total number of occurrances is %d\n", l.length);
 						}
 						
 						if( debug ){
@@ -115,19 +190,18 @@ public class Main {
 						System.out.print("Enter the name of the text file: ");
 						fileName1 = standardInput.nextLine();
 						
-						f1 = new FileInput(fileName1);
-						file1Contents = f1.readFile();
-						
-						t = new SuffixTree(file1Contents);
-						a = new SuffixTreeAppl(t);
-						Task3Info t3Result = a.traverseForLrs();
-						text = t.getString();
+						if( !answers(index, 3, streamLcs) ){
+							System.out.printf("The %s index cannot find a longest repeated substring.\n", index);
+							break;
+						}
+						entry = openIndex(cache, index, method, fileName1);
+						Task3Info t3Result = ((RepeatIndex) entry.getIndex()).traverseForLrs();
 						
 						if( t3Result.getLen() < 1 )
 							System.out.printf("No LRS was found in %s\n", fileName1);
 						else{
 							System.out.printf("An LRS in %s is \"", fileName1);
-							printByteArray(text, t3Result.getPos1(), t3Result.getLen());
+							printText(entry, fileName1, t3Result.getPos1(), t3Result.getLen());
 							System.out.println("\"");
 							System.out.printf("Its length is %d\n", t3Result.getLen());
 							System.out.printf("Starting position of one occurrence is %d\n", t3Result.getPos1());
@@ -145,21 +219,30 @@ public class Main {
 						System.out.print("Enter the name of the second text file: ");
 						fileName2 = standardInput.nextLine();
 						
-						f1 = new FileInput(fileName1);
-						file1Contents = f1.readFile();
-						f2 = new FileInput(fileName2);
-						file2Contents = f2.readFile();
-						
-						t = new SuffixTree(file1Contents, file2Contents);
-						a = new SuffixTreeAppl(t);
-						Task4Info t4Result = a.traverseForLcs(file1Contents.length);
-						text = t.getString();
+						if( !answers(index, 4, streamLcs) ){
+							System.out.printf("The %s index cannot find a longest common substring.\n", index);
+							break;
+						}
+						Task4Info t4Result;
+						boolean swap = false;   // is the LCS text taken from the second file?
+						if( streamLcs ){
+							// index the smaller file and stream the larger one
+							swap = new File(fileName2).length() < new File(fileName1).length();
+							entry = openIndex(cache, "tree", method, swap ? fileName2 : fileName1);
+							t4Result = streamForLcs((SuffixTreeAppl) entry.getIndex(),
+									swap ? fileName1 : fileName2, swap);
+						}
+						else{
+							entry = openIndex(cache, index, method, fileName1, fileName2);
+							t4Result = ((CommonSubstringIndex) entry.getIndex()).traverseForLcs(entry.getText().length);
+						}
+						text = entry.getText();
 						
 						if( t4Result.getLen() < 1 )
 							System.out.printf("No LCS of %s and %s\n", fileName1, fileName2);
 						else{
 							System.out.printf("An LCS of %s and %s is \"", fileName1, fileName2);
-							printByteArray(text, t4Result.getPos1(), t4Result.getLen());
+							printByteArray(text, swap ? t4Result.getPos2() : t4Result.getPos1(), t4Result.getLen());
 							System.out.println("\"");
 							System.out.printf("Its length is %d\n", t4Result.getLen());
 							System.out.printf("Starting position in %s is %d\n", fileName1, t4Result.getPos1());
@@ -194,12 +277,492 @@ public class Main {
 				else
 					break;
 			}
+			catch (UncheckedIOException e) {
+				System.out.println(e.getCause());
+				System.exit(-1);
+			}
+			catch (IllegalArgumentException e) {
+				System.out.println(e.getMessage());
+				System.exit(-1);
+			}
 		} while (true);
+		if( debug )
+			System.out.println(cache);
+		if (Stats.ENABLED)
+			System.out.print(Stats.dump());
 		standardInput.close();
 	}
 	
+	/**
+	 * Answers the queries in a query file, writing one line of results per
+	 * query, its fields separated by tabs, through a buffered writer.
+	 * 
+	 * If a text file is given, its index is built once and every line of the
+	 * query file is a pattern to search for in it; the patterns are searched
+	 * for BATCH_SIZE at a time by a BatchSearch, and the result for each is
+	 * "line position count", where position is the starting position of an
+	 * occurrence (-1 if there is none).
+	 * 
+	 * Otherwise each line of the query file is a task command, its fields
+	 * separated by tabs (the pattern being the rest of the line):
+	 * "1 file pattern", "2 file pattern", "3 file" or "4 file1 file2".  The
+	 * results are "line 1 position", "line 2 count positions" (the positions
+	 * in increasing order separated by commas), "line 3 length pos1 pos2"
+	 * and "line 4 length pos1 pos2", as in the interactive tasks; a line
+	 * that is not a valid command, or whose files cannot be read or
+	 * indexed, gives "line error message" and the following lines are still
+	 * answered.  Indexes are kept in the cache between commands as they are
+	 * between tasks.  The results written are flushed before the program
+	 * exits on an error that ends the whole batch.
+	 * 
+	 * Lines are numbered from 1; blank lines and lines starting with '#'
+	 * are passed over.
+	 * 
+	 * @param cache the cache
+	 * @param index the kind of index, as for buildIndex
+	 * @param method the suffix tree construction algorithm
+	 * @param streamLcs true to find an LCS from the suffix tree of the
+	 * smaller file alone, as in Task 4
+	 * @param queryFile the name of the query file
+	 * @param textFile the name of the text file to search (null for task commands)
+	 * @param outFile the name of the file for the results (null for standard output)
+	 */
+	static void runBatch(IndexCache cache, String index, BuildMethod method, boolean streamLcs,
+			String queryFile, String textFile, String outFile){
+		try (BufferedReader in = new BufferedReader(new FileReader(queryFile), BATCH_BUFFER)) {
+			BufferedWriter out = new BufferedWriter(outFile == null
+					? new OutputStreamWriter(System.out) : new FileWriter(outFile), BATCH_BUFFER);
+			try {
+				if( textFile != null )
+					batchSearch(openIndex(cache, index, method, textFile).getIndex(), in, out);
+				else
+					batchCommands(cache, index, method, streamLcs, in, out);
+			}
+			finally {
+				// standard output is flushed but left open
+				if( outFile == null )
+					out.flush();
+				else
+					out.close();
+			}
+		}
+		catch (IOException e) {
+			System.out.println(e);
+			System.exit(-1);
+		}
+		catch (UncheckedIOException e) {
+			// the text file to search could not be read
+			System.out.println(e.getCause());
+			System.exit(-1);
+		}
+		catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			System.exit(-1);
+		}
+	}
+	
+	/**
+	 * Searches an index for each pattern read, BATCH_SIZE patterns at a
+	 * time, writing "line position count" for each (see runBatch).
+	 */
+	static void batchSearch(TextIndex a, BufferedReader in, BufferedWriter out) throws IOException {
+		BatchSearch batch = new BatchSearch(a);
+		byte[][] patterns = new byte[BATCH_SIZE][];
+		int[] lines = new int[BATCH_SIZE];
+		int lineNum = 0, n;
+		String line = "";
+		
+		while( line != null ){
+			for( n = 0; n < BATCH_SIZE && (line = in.readLine()) != null; ){
+				lineNum++;
+				if( line.length() > 0 && line.charAt(0) != '#' ){
+					patterns[n] = line.getBytes();
+					lines[n++] = lineNum;
+				}
+			}
+			byte[][] chunk = n == BATCH_SIZE ? patterns : Arrays.copyOf(patterns, n);
+			BatchInfo info = batch.searchAndCountAll(chunk);
+			long[] positions = info.getResults();
+			long[] counts = info.getCounts();
+			for( int i = 0; i < n; i++ ){
+				out.write(lines[i] + "\t" + positions[i] + "\t" + counts[i]);
+				out.newLine();
+			}
+		}
+	}
+	
+	/**
+	 * Carries out each task command read, writing a line of results for
+	 * each (see runBatch).
+	 */
+	static void batchCommands(IndexCache cache, String index, BuildMethod method, boolean streamLcs,
+			BufferedReader in, BufferedWriter out) throws IOException {
+		StringBuilder result = new StringBuilder();
+		int lineNum = 0;
+		String line;
+		
+		while( (line = in.readLine()) != null ){
+			lineNum++;
+			if( line.length() == 0 || line.charAt(0) == '#' )
+				continue;
+			String[] fields = line.split("\t", 3);
+			result.setLength(0);
+			result.append(lineNum).append('\t');
+			
+			int mark = result.length();
+			try {
+				if( fields[0].equals("1") && fields.length == 3 && fields[2].length() > 0 ){
+					TextIndex a = openIndex(cache, index, method, fields[1]).getIndex();
+					result.append("1\t").append(a.searchSuffixTree(fields[2].getBytes()).getPos());
+				}
+				else if( fields[0].equals("2") && fields.length == 3 && fields[2].length() > 0 ){
+					TextIndex a = openIndex(cache, index, method, fields[1]).getIndex();
+					long[] positions = a.allOccurrences(fields[2].getBytes()).getPositionArray();
+					Arrays.sort(positions);
+					result.append("2\t").append(positions.length).append('\t');
+					for( int i = 0; i < positions.length; i++ )
+						result.append(i == 0 ? "" : ",").append(positions[i]);
+				}
+				else if( (fields[0].equals("3") || fields[0].equals("4"))
+						&& !answers(index, Integer.parseInt(fields[0]), streamLcs) )
+					result.append("error\t").append("the ").append(index).append(" index cannot answer task ").append(fields[0]);
+				else if( fields[0].equals("3") && fields.length == 2 ){
+					Task3Info t3Result = ((RepeatIndex) openIndex(cache, index, method, fields[1])
+							.getIndex()).traverseForLrs();
+					result.append("3\t").append(t3Result.getLen()).append('\t')
+							.append(t3Result.getPos1()).append('\t').append(t3Result.getPos2());
+				}
+				else if( fields[0].equals("4") && fields.length == 3 ){
+					Task4Info t4Result;
+					if( streamLcs ){
+						boolean swap = new File(fields[2]).length() < new File(fields[1]).length();
+						IndexCache.Entry entry = openIndex(cache, "tree", method, swap ? fields[2] : fields[1]);
+						t4Result = streamForLcs((SuffixTreeAppl) entry.getIndex(), swap ? fields[1] : fields[2], swap);
+					}
+					else{
+						IndexCache.Entry entry = openIndex(cache, index, method, fields[1], fields[2]);
+						t4Result = ((CommonSubstringIndex) entry.getIndex()).traverseForLcs(entry.getText().length);
+					}
+					result.append("4\t").append(t4Result.getLen()).append('\t')
+							.append(t4Result.getPos1()).append('\t').append(t4Result.getPos2());
+				}
+				else
+					result.append("error\t").append("not a task command");
+			}
+			catch (UncheckedIOException e) {
+				result.setLength(mark);
+				result.append("error\t").append("cannot read ").append(e.getCause().getMessage());
+			}
+			catch (RuntimeException e) {
+				// as when a file cannot be indexed; the other lines are still answered
+				result.setLength(mark);
+				result.append("error\t").append(e.getMessage() == null ? e.toString() : e.getMessage());
+			}
+			
+			out.append(result);
+			out.newLine();
+		}
+	}
+	
+	/**
+	 * Gets whether the given kind of index answers a task.  An FM-index
+	 * holds no LCP information, so finds neither a longest repeated nor a
+	 * longest common substring (it is not a RepeatIndex or a
+	 * CommonSubstringIndex), and an external suffix array covers a single
+	 * text, so finds no longest common substring; Task 4 found by streaming
+	 * uses a suffix tree whatever the kind of index.
+	 * 
+	 * @param index the kind of index, as for buildIndex
+	 * @param task the number of the task
+	 * @param streamLcs true if an LCS is found by streaming, as in Task 4
+	 * @return true if the task may be carried out with the index
+	 */
+	static boolean answers(String index, int task, boolean streamLcs){
+		if( task == 3 )
+			return !index.equals("fm");
+		if( task == 4 && !streamLcs )
+			return !index.equals("fm") && !index.equals("external");
+		return true;
+	}
+	
+	/**
+	 * Gets the index of the given kind for a text file from the cache, or
+	 * reads the file, builds the index and adds it to the cache.
+	 * 
+	 * @param cache the cache
+	 * @param index the kind of index, as for buildIndex
+	 * @param method the suffix tree construction algorithm
+	 * @param fileName the name of the text file
+	 * @return the cache entry holding the index and the contents of the
+	 * file (none for an external or FM index)
+	 * @throws UncheckedIOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file cannot be indexed, as
+	 * when it contains a '$'
+	 */
+	static IndexCache.Entry openIndex(IndexCache cache, String index, BuildMethod method, String fileName){
+		String key = IndexCache.key(index, fileName);
+		IndexCache.Entry e = cache.get(key);
+		if( e == null && index.equals("external") ){
+			// the text is mapped, not read, so the entry holds no contents
+			e = new IndexCache.Entry(openExternal(fileName), null, 0);
+			cache.put(key, e);
+		}
+		else if( e == null && index.equals("stored") ){
+			e = openStored(fileName);
+			cache.put(key, e);
+		}
+		else if( e == null && index.equals("fm") ){
+			// the FM-index stands in for the text, so the entry holds no contents
+			byte[] contents = readText(fileName, 1);  // leave room for the termination character
+			FMIndex f = new FMIndex(new SuffixArray(contents, contents.length - 1, true),
+					FMIndex.DEFAULT_SAMPLE_RATE);
+			e = new IndexCache.Entry(new FMIndexAppl(f), null, f.getSizeInBytes());
+			cache.put(key, e);
+		}
+		else if( e == null ){
+			byte[] contents = readText(fileName, 1);  // leave room for the termination character
+			int len = contents.length - 1;
+			
+			e = new IndexCache.Entry(buildIndex(index, method, fileName, contents, len),
+					contents, estimateSize(index, len));
+			cache.put(key, e);
+		}
+		return e;
+	}
+	
+	/**
+	 * Gets the generalised index of the given kind for two text files from
+	 * the cache, or reads the files, builds the index and adds it to the cache.
+	 * 
+	 * @param cache the cache
+	 * @param index the kind of index, as for buildIndex
+	 * @param method the suffix tree construction algorithm
+	 * @param fileName1 the name of the first text file
+	 * @param fileName2 the name of the second text file
+	 * @return the cache entry holding the index and the contents of the first file
+	 */
+	static IndexCache.Entry openIndex(IndexCache cache, String index, BuildMethod method,
+			String fileName1, String fileName2){
+		String key = IndexCache.key(index, fileName1, fileName2);
+		IndexCache.Entry e = cache.get(key);
+		if( e == null ){
+			byte[] file1Contents = readText(fileName1, 0);
+			byte[] file2Contents = readText(fileName2, 0);
+			
+			e = new IndexCache.Entry(buildIndex(index, method, file1Contents, file2Contents),
+					file1Contents, estimateSize(index.equals("stored") ? "flat" : index,
+							file1Contents.length + file2Contents.length + 1));
+			cache.put(key, e);
+		}
+		return e;
+	}
+	
+	/**
+	 * Finds an LCS of the string indexed by a suffix tree and the contents
+	 * of a text file, which is read as a stream (see SuffixTreeAppl.streamForLcs).
+	 * 
+	 * @param a the applications for the suffix tree
+	 * @param fileName the name of the text file to stream
+	 * @param swap true if the text file is the first of the two strings
+	 * @return a Task4Info object, with positions in the first and second strings
+	 * @throws UncheckedIOException if the file cannot be read
+	 */
+	static Task4Info streamForLcs(SuffixTreeAppl a, String fileName, boolean swap){
+		Task4Info t4Result;
+		try (InputStream in = new FileInputStream(fileName)) {
+			t4Result = a.streamForLcs(in);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if( swap ){
+			int p = t4Result.getPos1();
+			t4Result.setPos1(t4Result.getPos2());
+			t4Result.setPos2(p);
+		}
+		return t4Result;
+	}
+	
+	/**
+	 * Estimates the memory taken by an index of the given kind of a string
+	 * and by the string itself.  A suffix tree has up to 2n nodes; the
+	 * stored index and its string live in mapped memory, outside the
+	 * budget, leaving only the leaf counts computed on the heap.  An
+	 * FM-index, which holds no string, is charged its own size instead
+	 * (see FMIndex.getSizeInBytes).
+	 * 
+	 * @param index the kind of index, as for buildIndex
+	 * @param len the length of the string
+	 * @return the estimated size in bytes
+	 */
+	static long estimateSize(String index, long len){
+		if( index.equals("array") )
+			return 9 * len;      // string, suffix array and LCP array
+		if( index.equals("flat") )
+			return 41 * len;     // string and five ints per node
+		if( index.equals("stored") )
+			return 8 * len;      // one int per node
+		return 97 * len;         // string and about 48 bytes per SuffixTreeNode
+	}
+	
+	/**
+	 * Builds the index of the given kind for the string held in the first
+	 * len positions of an array read by FileInput.readFile(1), which the
+	 * index takes over.
+	 * 
+	 * @param index "tree" for a suffix tree, "flat" for a suffix tree held in
+	 * arrays, or "array" for a suffix array (a "stored" index is opened by
+	 * openStored, and an FM-index built by openIndex, instead)
+	 * @param method the suffix tree construction algorithm
+	 * @param fileName the name of the text file holding the string
+	 * @param contents the array holding the string to be indexed
+	 * @param len the length of the string
+	 * @return the applications for the index
+	 */
+	static TextIndex buildIndex(String index, BuildMethod method, String fileName, byte[] contents, int len){
+		if( index.equals("array") )
+			return new SuffixArrayAppl(new SuffixArray(contents, len, true));
+		if( index.equals("flat") )
+			return new FlatSuffixTreeAppl(new FlatSuffixTree(contents, len, true));
+		return new SuffixTreeAppl(new SuffixTree(contents, len, method, true));
+	}
+	
+	/**
+	 * Opens the suffix array of a text file held on disk in its index file
+	 * (the name of the text file followed by ".sxsa"), first building the
+	 * index file if it is missing, older than the text file or of an older
+	 * format.
+	 * 
+	 * @param fileName the name of the text file
+	 * @return the applications for the suffix array
+	 * @throws UncheckedIOException if a file cannot be read or written
+	 */
+	static TextIndex openExternal(String fileName){
+		File textFile = new File(fileName);
+		File indexFile = new File(fileName + ".sxsa");
+		
+		try {
+			if( indexFile.lastModified() >= textFile.lastModified() ){
+				try {
+					return new ExternalSuffixArrayAppl(ExternalSuffixArray.open(fileName, indexFile.getPath()));
+				}
+				catch (IOException e) {
+					// an index file of another version, or of other contents: rebuild it
+				}
+			}
+			ExternalSuffixArray.build(fileName, indexFile.getPath());
+			return new ExternalSuffixArrayAppl(ExternalSuffixArray.open(fileName, indexFile.getPath()));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Reads a text file into an array (see FileInput.read).
+	 * 
+	 * @param fileName the name of the text file
+	 * @param extra the number of unused bytes to leave after the contents
+	 * @return the contents of the file, followed by extra unused bytes
+	 * @throws UncheckedIOException if the file cannot be read
+	 */
+	static byte[] readText(String fileName, int extra){
+		try {
+			return new FileInput(fileName).read(extra);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Opens the suffix tree of a text file held in its index file (the name
+	 * of the text file followed by ".stix").  If the index file is that of
+	 * the current contents of the text file it is mapped without the text
+	 * file being read into memory; otherwise the suffix tree is built,
+	 * saved to the index file for next time and mapped back from it.
+	 * 
+	 * @param fileName the name of the text file
+	 * @return the cache entry holding the index, and the contents of the
+	 * file only if the index file could not be written
+	 */
+	static IndexCache.Entry openStored(String fileName){
+		String indexFile = fileName + ".stix";
+		try {
+			if( IndexFile.isCurrent(indexFile, fileName) ){
+				FlatSuffixTree t = IndexFile.load(indexFile);
+				return new IndexCache.Entry(new FlatSuffixTreeAppl(t), null, estimateSize("stored", t.getStringLen()));
+			}
+		}
+		catch (IOException e) {
+			// an index file that cannot be read is rebuilt, and a text file
+			// that cannot be read is reported below
+		}
+		
+		byte[] contents = readText(fileName, 1);  // leave room for the termination character
+		int len = contents.length - 1;
+		FlatSuffixTree t = new FlatSuffixTree(contents, len, true);
+		try {
+			IndexFile.save(t, indexFile);
+			return new IndexCache.Entry(new FlatSuffixTreeAppl(IndexFile.load(indexFile)), null,
+					estimateSize("stored", len));
+		}
+		catch (IOException e) {
+			System.out.println(e);
+		}
+		return new IndexCache.Entry(new FlatSuffixTreeAppl(t), contents, estimateSize("flat", len));
+	}
+	
+	/**
+	 * Builds the generalised index of the given kind for two strings.
+	 * 
+	 * @param index "tree" for a suffix tree, "flat" or "stored" for a suffix
+	 * tree held in arrays (generalised trees are not stored), or "array" for
+	 * a suffix array
+	 * @param method the suffix tree construction algorithm
+	 * @param contents1 the first string
+	 * @param contents2 the second string
+	 * @return the applications for the index
+	 */
+	static TextIndex buildIndex(String index, BuildMethod method, byte[] contents1, byte[] contents2){
+		if( index.equals("array") )
+			return new SuffixArrayAppl(new SuffixArray(contents1, contents2));
+		if( index.equals("flat") || index.equals("stored") )
+			return new FlatSuffixTreeAppl(new FlatSuffixTree(contents1, contents2));
+		return new SuffixTreeAppl(new SuffixTree(contents1, contents2, method));
+	}
+	
+	/**
+	 * Prints a substring of a text file, taken from the contents held in a
+	 * cache entry or, for an index that does not hold them, from the file.
+	 * 
+	 * @param entry the cache entry of the index of the text file
+	 * @param fileName the name of the text file
+	 * @param startPos the starting position of the substring
+	 * @param x_len the length of the substring
+	 */
+	static void printText(IndexCache.Entry entry, String fileName, long startPos, int x_len){
+		if( entry.getText() != null ){
+			printByteArray(entry.getText(), (int) startPos, x_len);
+			return;
+		}
+		byte[] x = new byte[x_len];
+		try (RandomAccessFile f = new RandomAccessFile(fileName, "r")) {
+			f.seek(startPos);
+			f.readFully(x);
+		}
+		catch (IOException e) {
+			System.out.println(e);
+			System.exit(-1);
+		}
+		printByteArray(x, 0, x_len);
+	}
+	
 	static void printByteArray(byte[] x, int startPos, int x_len){
-		for(int i = startPos; i < startPos + x_len; i++)
-			System.out.print( (char)x[i] );
+		// one character per byte, as (char) x[i], printed in a single call
+		char[] c = new char[x_len];
+		for(int i = 0; i < x_len; i++)
+			c[i] = (char)x[startPos + i];
+		System.out.print( c );
 	}
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package SuffixTreePackage;
+
+/**
+ * Class for representing information to be returned by the methods of
+ * BatchSearch: one result per pattern, in the order of the patterns, and
+ * the time taken by the batch.
+ */
+
+public class BatchInfo {
+
+	/** The result for each pattern. */
+	private long [] results;
+
+	/** The number of occurrences of each pattern, if counted alongside (otherwise null). */
+	private long [] counts;
+
+	/** Time taken to answer the whole batch, in nanoseconds. */
+	private long elapsedNanos;
+
+	/** Number of threads available to answer the batch. */
+	private int parallelism;
+
+	/**
+	 * Constructor with parameters.
+	 * 
+	 * @param resultsIn the result for each pattern
+	 * @param nanos the time taken to answer the batch, in nanoseconds
+	 * @param threads the number of threads available to answer the batch
+	 */
+	public BatchInfo(long [] resultsIn, long nanos, int threads)
+	{
+		this(resultsIn, null, nanos, threads);
+	}
+
+	/**
+	 * Constructor with parameters, for a batch whose patterns were also
+	 * counted.
+	 * 
+	 * @param resultsIn the result for each pattern
+	 * @param countsIn the number of occurrences of each pattern
+	 * @param nanos the time taken to answer the batch, in nanoseconds
+	 * @param threads the number of threads available to answer the batch
+	 */
+	public BatchInfo(long [] resultsIn, long [] countsIn, long nanos, int threads)
+	{
+		results = resultsIn;
+		counts = countsIn;
+		elapsedNanos = nanos;
+		parallelism = threads;
+	}
+
+	/**
+	 * Gets the result for each pattern: for BatchSearch.searchAll the
+	 * starting position of an occurrence (-1 if there is none), and for
+	 * BatchSearch.countAll the number of occurrences.  For
+	 * BatchSearch.searchAndCountAll they are the starting positions.
+	 * 
+	 * @return the results, in the order of the patterns
+	 */
+	public long[] getResults() { return results; }
+
+	/**
+	 * Gets the number of occurrences of each pattern, as found by
+	 * BatchSearch.searchAndCountAll.
+	 * 
+	 * @return the counts, in the order of the patterns (null if the batch
+	 * was not counted)
+	 */
+	public long[] getCounts() { return counts; }
+
+	/**
+	 * Gets the time taken to answer the whole batch.
+	 * 
+	 * @return the time in nanoseconds
+	 */
+	public long getElapsedNanos() { return elapsedNanos; }
+
+	/**
+	 * Gets the number of threads available to answer the batch.
+	 * 
+	 * @return the number of threads
+	 */
+	public int getParallelism() { return parallelism; }
+
+	/**
+	 * Gets the number of patterns answered per second.
+	 * 
+	 * @return the throughput
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : results.length * 1e9 / elapsedNanos;
+	}
+}
@@ -0,0 +1,141 @@
+package SuffixTreePackage;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class for answering batches of searches against one index in parallel.
+ * 
+ * The index is only read once built, so any number of threads may search
+ * it at once.  The batch is split recursively into ranges of patterns
+ * that are searched as tasks of a ForkJoinPool, each task writing its
+ * results straight into the slots of a shared array; the results thus
+ * come back in the order of the patterns without any merging.
+ */
+
+public class BatchSearch {
+
+	/** Batches of at most this many patterns are searched by a single task. */
+	static final int SPLIT_THRESHOLD = 64;
+
+	/** The index searched. */
+	private TextIndex index;
+
+	/** The pool whose threads carry out the searches. */
+	private ForkJoinPool pool;
+
+	/**
+	 * Constructor with parameter, using the common ForkJoinPool.
+	 * 
+	 * @param indexIn the index to be searched
+	 */
+	public BatchSearch (TextIndex indexIn) {
+		this(indexIn, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor with parameters.
+	 * 
+	 * @param indexIn the index to be searched
+	 * @param poolIn the pool whose threads carry out the searches
+	 */
+	public BatchSearch (TextIndex indexIn, ForkJoinPool poolIn) {
+		index = indexIn;
+		pool = poolIn;
+	}
+
+	/**
+	 * Searches the index for each of a batch of patterns (as in Task 1).
+	 * 
+	 * @param patterns the patterns to search for
+	 * 
+	 * @return the starting position of an occurrence of each pattern (-1 if
+	 * there is none), in the order of the patterns, and the time taken
+	 */
+	public BatchInfo searchAll(byte[][] patterns) {
+		return run(patterns, false);
+	}
+
+	/**
+	 * Counts the occurrences of each of a batch of patterns.
+	 * 
+	 * @param patterns the patterns to search for
+	 * 
+	 * @return the number of occurrences of each pattern, in the order of
+	 * the patterns, and the time taken
+	 */
+	public BatchInfo countAll(byte[][] patterns) {
+		return run(patterns, true);
+	}
+
+	/**
+	 * Searches the index for each of a batch of patterns and counts its
+	 * occurrences, searching for each pattern only once (see
+	 * TextIndex.searchAndCount).
+	 * 
+	 * @param patterns the patterns to search for
+	 * 
+	 * @return the starting position of an occurrence of each pattern (-1 if
+	 * there is none) and its number of occurrences, in the order of the
+	 * patterns, and the time taken
+	 */
+	public BatchInfo searchAndCountAll(byte[][] patterns) {
+		long [] results = new long[patterns.length];
+		long [] counts = new long[patterns.length];
+		long start = System.nanoTime();
+		pool.invoke(new SearchTask(patterns, results, counts, 0, patterns.length, false));
+		return new BatchInfo(results, counts, System.nanoTime() - start, pool.getParallelism());
+	}
+
+	private BatchInfo run(byte[][] patterns, boolean count) {
+		long [] results = new long[patterns.length];
+		long start = System.nanoTime();
+		pool.invoke(new SearchTask(patterns, results, null, 0, patterns.length, count));
+		return new BatchInfo(results, System.nanoTime() - start, pool.getParallelism());
+	}
+
+	/**
+	 * Task answering the patterns in positions from to to-1 of the batch;
+	 * if counts is not null, each pattern is both searched for and counted.
+	 */
+	private class SearchTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private byte [][] patterns;
+		private long [] results;
+		private long [] counts;
+		private int from;
+		private int to;
+		private boolean count;
+
+		SearchTask(byte[][] patternsIn, long[] resultsIn, long[] countsIn,
+				int fromIn, int toIn, boolean countIn) {
+			patterns = patternsIn;
+			results = resultsIn;
+			counts = countsIn;
+			from = fromIn;
+			to = toIn;
+			count = countIn;
+		}
+
+		protected void compute() {
+			if (to - from <= SPLIT_THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					if (counts != null) {
+						Task1Info t1Info = index.searchAndCount(patterns[i]);
+						results[i] = t1Info.getPos();
+						counts[i] = t1Info.getCount();
+					}
+					else
+						results[i] = count ? index.countOccurrences(patterns[i])
+								: index.searchSuffixTree(patterns[i]).getPos();
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new SearchTask(patterns, results, counts, from, mid, count),
+					new SearchTask(patterns, results, counts, mid, to, count));
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package SuffixTreePackage;
+
+/**
+ * Enumeration of the algorithms available for building a suffix tree.
+ */
+
+public enum BuildMethod {
+
+	/** Naive O(n^2) construction by repeated insertion of suffixes. */
+	NAIVE,
+
+	/** Ukkonen's O(n) online construction using suffix links. */
+	UKKONEN,
+
+	/**
+	 * O(n) construction from the suffix array and LCP array, the subtrees
+	 * below different nodes being built on the threads of the common
+	 * ForkJoinPool; short strings are built by Ukkonen's algorithm.
+	 */
+	PARALLEL
+}
@@ -0,0 +1,19 @@
+package SuffixTreePackage;
+
+/**
+ * Interface for generalised indexes of two strings that can also find a
+ * longest common substring of them (Task 4).
+ */
+
+public interface CommonSubstringIndex extends TextIndex {
+
+	/**
+	 * Finds embeddings of a longest common substring of the two strings
+	 * of a generalised index (Task 4).
+	 * 
+	 * @param s1Length the length of the first string
+	 * 
+	 * @return a Task4Info object
+	 */
+	public Task4Info traverseForLcs(int s1Length);
+}
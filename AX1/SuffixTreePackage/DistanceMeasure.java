@@ -0,0 +1,14 @@
+package SuffixTreePackage;
+
+/**
+ * Enumeration of the distances available for approximate search.
+ */
+
+public enum DistanceMeasure {
+
+	/** Number of positions at which two strings of equal length differ. */
+	HAMMING,
+
+	/** Least number of insertions, deletions and substitutions turning one string into the other. */
+	EDIT
+}
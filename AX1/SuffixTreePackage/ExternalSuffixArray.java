@@ -0,0 +1,890 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class for suffix arrays built on disk, for text files too large for the
+ * suffix array (let alone the suffix tree) and the text to be held on the
+ * heap together.
+ * 
+ * The text file is memory-mapped in segments (see SegmentedText) rather
+ * than read into an array, and positions are longs, so that texts of more
+ * than 2^31 bytes may be indexed.  Its suffixes are bucketed by their
+ * first two characters, counted in one pass over the text.  A bucket of
+ * more than budget/16 suffixes is split by their third character, in
+ * another pass, and so on until every range of suffixes sharing a prefix
+ * fits (see Ranges); if more than budget/16 suffixes share their first
+ * MAX_PREFIX characters the build fails rather than exceed the budget.
+ * Consecutive ranges are then grouped into partitions of at most budget/16
+ * suffixes, and each partition is sorted in memory by multikey quicksort
+ * on its first MAX_PREFIX characters only and appended to the index file.
+ * Since the ranges are in order, the index file ends up holding the whole
+ * suffix array, while at most one partition is ever on the heap.
+ * 
+ * Suffixes still tied on their first MAX_PREFIX characters are then put
+ * in order by prefix doubling, as in the algorithm of Larsson and
+ * Sadakane: the rank of each suffix, the index of the first suffix tied
+ * with it, is kept in a temporary file beside the index file, and each
+ * round sorts every group of tied suffixes p by the rank of p+h, doubling
+ * the number h of characters by which they are known to agree.  Repetitive
+ * text thus takes O(n log n) time to sort rather than time proportional to
+ * the lengths of its repeats.  The ranks at the end are the inverse of the
+ * suffix array, and the longest common prefix of each suffix with the one
+ * before it is found from them by the Phi algorithm of Karkkainen, Manzini
+ * and Puglisi, reading the text in order but for one other suffix at a
+ * time, and is stored after the suffix array.
+ * 
+ * The suffixes of a partition are gathered by scanning the text.  When
+ * there are several partitions, a single scan distributes the suffixes of
+ * up to PARTITIONS_PER_PASS of them into temporary files beside the index
+ * file, from which each is read back in turn, so that the text is read
+ * once for every PARTITIONS_PER_PASS partitions rather than once for each.
+ * 
+ * The index file has a 32-byte header (the magic number "SXSA", the format
+ * version, the width of an entry, a reserved int, the length of the text
+ * as a long and two reserved ints) followed by the suffix array, one
+ * little-endian entry per suffix, and then the LCP array, whose i-th entry
+ * is the length of the longest common prefix of suffixes i-1 and i of the
+ * suffix array (0 for the first).  Entries are ints unless the text is
+ * longer than Integer.MAX_VALUE, when they are longs, so that only the
+ * texts that need them pay for 64-bit entries.  Index files of other
+ * versions are not read, and must be rebuilt.  Unlike SuffixArray there
+ * is no termination character: a suffix that is a prefix of another is
+ * simply the smaller.  Opening the index maps both files, so that nothing
+ * is read until it is used.
+ */
+
+public class ExternalSuffixArray {
+
+	/** Version of the index file format written by this class. */
+	public static final int VERSION = 3;
+
+	/** Default number of bytes of heap used for sorting. */
+	public static final long DEFAULT_BUDGET = 256L << 20;
+
+	/** Largest number of leading characters by which a range of suffixes is split. */
+	public static final int MAX_PREFIX = 64;
+
+	/** The bytes "SXSA" read as a little-endian int. */
+	private static final int MAGIC = 0x41535853;
+
+	/** Length of the header in bytes. */
+	private static final int HEADER_SIZE = 32;
+
+	/** Number of buckets: 256 first characters times 257 second characters (including none). */
+	private static final int BUCKETS = 256 * 257;
+
+	/** Largest number of partitions whose suffixes are gathered in one scan of the text. */
+	static final int PARTITIONS_PER_PASS = 64;
+
+	/** Size in bytes of the buffer of each temporary file. */
+	private static final int SPILL_BUFFER_SIZE = 1 << 16;
+
+	/** Number of leading characters by which multikey quicksort sorts suffixes, before prefix doubling. */
+	private static final int SORT_DEPTH = MAX_PREFIX;
+
+	/** Size of the ranges of suffixes below which quicksort uses insertion sort. */
+	private static final int INSERTION_THRESHOLD = 16;
+
+	/** The text, mapped from the text file. */
+	private SegmentedText text;
+
+	/** Length of the text. */
+	private long stringLen;
+
+	/** The suffix array, mapped from the index file. */
+	private SegmentedText sa;
+
+	/** The LCP array, mapped from the index file. */
+	private SegmentedText lcp;
+
+	/** Width in bytes of an entry of the suffix and LCP arrays: 4 or 8. */
+	private int width;
+
+	/**
+	 * Instantiates a suffix array over mapped text and index files.
+	 */
+	private ExternalSuffixArray(SegmentedText t, SegmentedText array, SegmentedText lcpArray, int w) {
+		text = t;
+		stringLen = t.length();
+		sa = array;
+		lcp = lcpArray;
+		width = w;
+	}
+
+	/**
+	 * Builds the suffix array of a text file in an index file, using the
+	 * default budget of heap.
+	 * 
+	 * @param textFile the name of the text file
+	 * @param indexFile the name of the index file
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void build(String textFile, String indexFile) throws IOException {
+		build(textFile, indexFile, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Builds the suffix array of a text file in an index file, sorting at
+	 * most budget/16 suffixes at a time (each taking 8 bytes for its
+	 * position and 8 for its sort key).  The file is written under a
+	 * temporary name and then renamed, so that it is never seen half-written.
+	 * 
+	 * @param textFile the name of the text file
+	 * @param indexFile the name of the index file
+	 * @param budget the number of bytes of heap to use for sorting
+	 * @throws IOException if a file cannot be read or written
+	 * @throws IllegalArgumentException if more than budget/16 suffixes share
+	 * their first MAX_PREFIX characters, so cannot be sorted within the budget
+	 */
+	public static void build(String textFile, String indexFile, long budget) throws IOException {
+		SegmentedText t = SegmentedText.map(textFile);
+		long n = t.length();
+		int w = n > Integer.MAX_VALUE ? 8 : 4;
+		long maxPartition = Math.max(1, Math.min(budget / 16, Integer.MAX_VALUE - 8));
+		Ranges ranges = new Ranges(t, n, maxPartition);
+		long [] start = ranges.getStarts();
+
+		// partition k is ranges bounds[k] to bounds[k+1]-1; since no range
+		// holds more than maxPartition suffixes, neither does a partition
+		IntList bounds = new IntList();
+		bounds.add(0);
+		for (int first = 0; first < ranges.size(); ) {
+			int last = first + 1;
+			while (last < ranges.size() && start[last + 1] - start[first] <= maxPartition)
+				last++;
+			bounds.add(last);
+			first = last;
+		}
+
+		Path temp = Paths.get(indexFile + ".tmp");
+		Path rankFile = Paths.get(indexFile + ".rank");
+		FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ);
+		FileChannel rankChannel = null;
+		try {
+			rankChannel = FileChannel.open(rankFile, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ);
+			SegmentedText rank = SegmentedText.mapWritable(rankChannel, 0, w * n,
+					SegmentedText.DEFAULT_SEGMENT_BITS);
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(w).putInt(0);
+			buffer.putLong(n).putInt(0).putInt(0);
+
+			int partitions = bounds.size() - 1;
+			for (int k = 0; k < partitions; k += PARTITIONS_PER_PASS) {
+				int m = Math.min(PARTITIONS_PER_PASS, partitions - k);
+				if (m == 1) {
+					long [] part = gather(t, n, ranges, bounds.get(k), bounds.get(k + 1));
+					mark(t, n, part, start[bounds.get(k)], rank, w);
+					write(channel, buffer, part, part.length, w);
+				}
+				else
+					spill(t, n, ranges, bounds, k, m, w, indexFile, rank, channel, buffer);
+			}
+			flush(channel, buffer);
+
+			SegmentedText array = SegmentedText.mapWritable(channel, HEADER_SIZE, w * n,
+					SegmentedText.DEFAULT_SEGMENT_BITS);
+			refine(n, array, rank, w);
+			writeLcp(t, n, array, rank, w, channel, buffer);
+			flush(channel, buffer);
+			array.force();
+			channel.force(true);
+		}
+		finally {
+			channel.close();
+			if (rankChannel != null)
+				rankChannel.close();
+			Files.deleteIfExists(rankFile);
+		}
+		Files.move(temp, Paths.get(indexFile), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Gathers the suffixes of ranges first to last-1 by scanning the text,
+	 * and sorts them.
+	 */
+	private static long [] gather(SegmentedText t, long n, Ranges ranges, int first, int last) {
+		long [] part = newPartition(ranges, first, last);
+		int [] next = offsets(ranges, first, last);
+		for (long p = 0; p < n; p++) {
+			int r = ranges.find(p);
+			if (r >= first && r < last)
+				part[next[r - first]++] = p;
+		}
+		sort(t, n, ranges, part, first, last);
+		return part;
+	}
+
+	/**
+	 * Gathers the suffixes of partitions k to k+m-1 in one scan of the text,
+	 * writing those of each partition to a temporary file of its own, then
+	 * reads back, sorts, marks and appends to the index file each partition
+	 * in turn.
+	 */
+	private static void spill(SegmentedText t, long n, Ranges ranges, IntList bounds, int k, int m, int w,
+			String indexFile, SegmentedText rank, FileChannel channel, ByteBuffer buffer) throws IOException {
+		int first = bounds.get(k), last = bounds.get(k + m);
+		int [] partitionOf = new int[last - first];
+		for (int j = 0; j < m; j++)
+			for (int r = bounds.get(k + j); r < bounds.get(k + j + 1); r++)
+				partitionOf[r - first] = j;
+
+		Path [] files = new Path[m];
+		FileChannel [] out = new FileChannel[m];
+		try {
+			ByteBuffer [] buffers = new ByteBuffer[m];
+			for (int j = 0; j < m; j++) {
+				files[j] = Paths.get(indexFile + ".part" + j);
+				out[j] = FileChannel.open(files[j], StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ);
+				buffers[j] = ByteBuffer.allocate(SPILL_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			}
+			for (long p = 0; p < n; p++) {
+				int r = ranges.find(p);
+				if (r >= first && r < last) {
+					ByteBuffer b = buffers[partitionOf[r - first]];
+					if (b.remaining() < 8)
+						flush(out[partitionOf[r - first]], b);
+					if (w == 4)
+						b.putInt((int) p);
+					else
+						b.putLong(p);
+				}
+			}
+
+			for (int j = 0; j < m; j++) {
+				ByteBuffer b = buffers[j];
+				flush(out[j], b);
+				int from = bounds.get(k + j), to = bounds.get(k + j + 1);
+				long [] part = newPartition(ranges, from, to);
+				int [] next = offsets(ranges, from, to);
+				out[j].position(0);
+				while (out[j].read(b) > 0) {
+					b.flip();
+					while (b.remaining() >= w) {
+						long p = w == 4 ? b.getInt() : b.getLong();
+						part[next[ranges.find(p) - from]++] = p;
+					}
+					b.compact();
+				}
+				out[j].close();
+				Files.delete(files[j]);
+
+				sort(t, n, ranges, part, from, to);
+				mark(t, n, part, ranges.getStarts()[from], rank, w);
+				write(channel, buffer, part, part.length, w);
+			}
+		}
+		finally {
+			for (int j = 0; j < m; j++) {
+				if (out[j] != null)
+					out[j].close();
+				if (files[j] != null)
+					Files.deleteIfExists(files[j]);
+			}
+		}
+	}
+
+	/**
+	 * Allocates the array for the suffixes of ranges first to last-1,
+	 * failing if they could not be held in one.
+	 */
+	private static long [] newPartition(Ranges ranges, int first, int last) {
+		long [] start = ranges.getStarts();
+		return new long[Math.toIntExact(start[last] - start[first])];
+	}
+
+	/**
+	 * Gets the offset in a partition of ranges first to last-1 of each of
+	 * its ranges.
+	 */
+	private static int [] offsets(Ranges ranges, int first, int last) {
+		long [] start = ranges.getStarts();
+		int [] next = new int[last - first];
+		for (int r = first; r < last; r++)
+			next[r - first] = (int) (start[r] - start[first]);
+		return next;
+	}
+
+	/**
+	 * Sorts each range of a partition of ranges first to last-1, whose
+	 * suffixes have been gathered into the ranges' places in the array, by
+	 * their first SORT_DEPTH characters.
+	 */
+	private static void sort(SegmentedText t, long n, Ranges ranges, long [] part, int first, int last) {
+		long [] start = ranges.getStarts();
+		for (int r = first; r < last; r++)
+			sort(t, n, part, (int) (start[r] - start[first]), (int) (start[r + 1] - start[first]),
+					ranges.getDepth(r));
+	}
+
+	/**
+	 * Records the ranks of the suffixes of a sorted partition, the first of
+	 * which is the offset-th smallest suffix: the rank of a suffix is the
+	 * index of the first suffix tied with it on SORT_DEPTH characters.  A
+	 * suffix tied with no other is in its final place, which is marked by
+	 * storing it as -1-p in the partition.
+	 */
+	private static void mark(SegmentedText t, long n, long [] part, long offset, SegmentedText rank, int w) {
+		for (int i = 0; i < part.length; ) {
+			int end = i + 1;
+			while (end < part.length && compare(t, n, part[end - 1], part[end], 0) == 0)
+				end++;
+			for (int j = i; j < end; j++)
+				put(rank, part[j], offset + i, w);
+			if (end - i == 1)
+				part[i] = -1 - part[i];
+			i = end;
+		}
+	}
+
+	/**
+	 * Puts in order the groups of suffixes of the suffix array that are
+	 * still tied, in rounds of prefix doubling, until no suffix is tied.
+	 */
+	private static void refine(long n, SegmentedText array, SegmentedText rank, int w) {
+		boolean tied = true;
+		for (long h = SORT_DEPTH; tied; h *= 2) {
+			tied = false;
+			for (long i = 0; i < n; ) {
+				long p = get(array, i, w), q;
+				if (p < 0) {
+					i++;
+					continue;
+				}
+				long end = i + 1;
+				while (end < n && (q = get(array, end, w)) >= 0 && get(rank, q, w) == i)
+					end++;
+				refine(n, array, rank, w, i, end, h);
+				tied = true;
+				i = end;
+			}
+		}
+	}
+
+	/**
+	 * Sorts the group of suffixes at indices first to last-1 of the suffix
+	 * array, which are tied on at least h characters, by the ranks of the
+	 * suffixes h characters on, then gives each new group its own rank.
+	 * The ranks of the group are all read before any is changed; a rank
+	 * changed by an earlier group of the round is only more precise, and
+	 * still lies within the indices of the group it was taken from, so it
+	 * orders the suffixes correctly as well.
+	 */
+	private static void refine(long n, SegmentedText array, SegmentedText rank, int w,
+			long first, long last, long h) {
+		int m = Math.toIntExact(last - first);
+		long [] pos = new long[m];
+		long [] key = new long[m];
+		for (int i = 0; i < m; i++) {
+			pos[i] = get(array, first + i, w);
+			key[i] = pos[i] + h < n ? get(rank, pos[i] + h, w) : -1;   // a suffix that has ended is the smallest
+		}
+		sortByKey(pos, key, m);
+
+		for (int i = 0; i < m; ) {
+			int end = i + 1;
+			while (end < m && key[end] == key[i])
+				end++;
+			for (int j = i; j < end; j++) {
+				put(rank, pos[j], first + i, w);
+				put(array, first + j, end - i == 1 ? -1 - pos[j] : pos[j], w);
+			}
+			i = end;
+		}
+	}
+
+	/**
+	 * Appends the LCP array to the index file, once the suffix array is
+	 * complete and the ranks are its inverse.  The rank file is overwritten
+	 * with Phi, the suffix before each suffix in the suffix array, and then
+	 * in order of position with the longest common prefix of each suffix
+	 * with that one, which is at least one less than that of the suffix
+	 * before it in the text; so the characters compared are O(n) in all.
+	 * The marks left on the suffix array are cleared on the way.
+	 */
+	private static void writeLcp(SegmentedText t, long n, SegmentedText array, SegmentedText phi, int w,
+			FileChannel channel, ByteBuffer buffer) throws IOException {
+		long prev = -1;
+		for (long i = 0; i < n; i++) {
+			long p = get(array, i, w);
+			if (p < 0) {
+				p = -1 - p;
+				put(array, i, p, w);
+			}
+			put(phi, p, prev, w);
+			prev = p;
+		}
+
+		long len = 0;
+		for (long p = 0; p < n; p++) {
+			long q = get(phi, p, w);
+			if (q < 0)
+				len = 0;
+			else
+				while (p + len < n && q + len < n && t.byteAt(p + len) == t.byteAt(q + len))
+					len++;
+			put(phi, p, len, w);
+			if (len > 0)
+				len--;
+		}
+
+		for (long i = 0; i < n; i++) {
+			if (buffer.remaining() < 8)
+				flush(channel, buffer);
+			long v = get(phi, get(array, i, w), w);
+			if (w == 4)
+				buffer.putInt((int) v);
+			else
+				buffer.putLong(v);
+		}
+	}
+
+	/**
+	 * Opens the suffix array of a text file held in an index file.
+	 * 
+	 * @param textFile the name of the text file
+	 * @param indexFile the name of the index file
+	 * @return the suffix array
+	 * @throws IOException if a file cannot be read, or the index file is not
+	 * a valid index of the text file
+	 */
+	public static ExternalSuffixArray open(String textFile, String indexFile) throws IOException {
+		SegmentedText t = SegmentedText.map(textFile);
+		FileChannel channel = FileChannel.open(Paths.get(indexFile), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER_SIZE)
+				throw new IOException(indexFile + " is not an index file");
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC)
+				throw new IOException(indexFile + " is not an index file");
+			int version = header.getInt(4);
+			if (version != VERSION)
+				throw new IOException(indexFile + " has unsupported index file version " + version);
+			int w = header.getInt(8);
+			long n = header.getLong(16);
+			if (n != t.length() || (w != 4 && w != 8) || size != HEADER_SIZE + 2 * w * n)
+				throw new IOException(indexFile + " is truncated or is not an index of " + textFile);
+			return new ExternalSuffixArray(t,
+					SegmentedText.map(channel, HEADER_SIZE, w * n, SegmentedText.DEFAULT_SEGMENT_BITS),
+					SegmentedText.map(channel, HEADER_SIZE + w * n, w * n, SegmentedText.DEFAULT_SEGMENT_BITS), w);
+		}
+		finally {
+			// the mappings remain valid after the channel is closed
+			channel.close();
+		}
+	}
+
+	/**
+	 * Gets the starting position of the i-th smallest suffix.
+	 * 
+	 * @param i the rank of the suffix (counting from 0)
+	 * @return the starting position in the text
+	 */
+	public long getSuffix(long i) {
+		return width == 4 ? sa.intAt(4 * i) : sa.longAt(8 * i);
+	}
+
+	/**
+	 * Gets the length of the longest common prefix of the i-th smallest
+	 * suffix and the one before it.
+	 * 
+	 * @param i the rank of the suffix (counting from 0)
+	 * @return the length of the longest common prefix (0 if i is 0)
+	 */
+	public long getLcp(long i) {
+		return width == 4 ? lcp.intAt(4 * i) : lcp.longAt(8 * i);
+	}
+
+	/**
+	 * Gets a character of the text.
+	 * 
+	 * @param p the position of the character
+	 * @return the character at position p
+	 */
+	public byte byteAt(long p) { return text.byteAt(p); }
+
+	/**
+	 * Gets the length of the text, which is also the number of suffixes.
+	 * 
+	 * @return the length of the text
+	 */
+	public long getStringLen() { return stringLen; }
+
+	/**
+	 * Gets the width of an entry of the suffix and LCP arrays.
+	 * 
+	 * @return 4 if entries are ints, 8 if they are longs
+	 */
+	public int getEntryWidth() { return width; }
+
+	/**
+	 * Writes the positions in a[0..size-1] to the index file in entries of
+	 * width w, through a buffer.
+	 */
+	private static void write(FileChannel channel, ByteBuffer buffer, long [] a, int size, int w)
+			throws IOException {
+		for (int i = 0; i < size; i++) {
+			if (buffer.remaining() < 8)
+				flush(channel, buffer);
+			if (w == 4)
+				buffer.putInt((int) a[i]);
+			else
+				buffer.putLong(a[i]);
+		}
+	}
+
+	/**
+	 * Gets the bucket of the suffix starting at position p, from its first
+	 * two characters; a suffix of one character comes before the others
+	 * starting with that character.
+	 */
+	private static int bucket(SegmentedText t, long n, long p) {
+		return (t.byteAt(p) & 0xff) * 257 + (p + 1 < n ? (t.byteAt(p + 1) & 0xff) + 1 : 0);
+	}
+
+	/** Gets the character at depth d of the suffix starting at p, or -1 if the suffix is shorter. */
+	private static int charAt(SegmentedText t, long n, long p, int d) {
+		return p + d < n ? t.byteAt(p + d) & 0xff : -1;
+	}
+
+	/**
+	 * Sorts the suffixes starting at a[lo..hi-1], which share their first
+	 * depth characters, by their first SORT_DEPTH characters, by multikey
+	 * quicksort with an explicit stack.
+	 */
+	private static void sort(SegmentedText t, long n, long [] a, int lo, int hi, int depth) {
+		IntList stack = new IntList();
+		stack.add(lo);
+		stack.add(hi);
+		stack.add(depth);
+
+		while (stack.size() > 0) {
+			int d = stack.removeLast();
+			hi = stack.removeLast();
+			lo = stack.removeLast();
+
+			if (hi - lo < INSERTION_THRESHOLD) {
+				insertionSort(t, n, a, lo, hi, d);
+				continue;
+			}
+
+			// partition a[lo..hi-1] into suffixes whose character at depth d is
+			// less than, equal to and greater than that of the middle suffix
+			int pivot = charAt(t, n, a[lo + (hi - lo) / 2], d);
+			int lt = lo, gt = hi, i = lo;
+			while (i < gt) {
+				int ch = charAt(t, n, a[i], d);
+				if (ch < pivot)
+					swap(a, lt++, i++);
+				else if (ch > pivot)
+					swap(a, i, --gt);
+				else
+					i++;
+			}
+
+			stack.add(lo);
+			stack.add(lt);
+			stack.add(d);
+			stack.add(gt);
+			stack.add(hi);
+			stack.add(d);
+			if (pivot >= 0 && d + 1 < SORT_DEPTH) {   // suffixes that have ended are all equal
+				stack.add(lt);
+				stack.add(gt);
+				stack.add(d + 1);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the suffixes starting at a[lo..hi-1], which share their first
+	 * depth characters, by their first SORT_DEPTH characters, by insertion
+	 * sort.
+	 */
+	private static void insertionSort(SegmentedText t, long n, long [] a, int lo, int hi, int depth) {
+		for (int i = lo + 1; i < hi; i++) {
+			long p = a[i];
+			int j = i;
+			while (j > lo && compare(t, n, a[j - 1], p, depth) > 0) {
+				a[j] = a[j - 1];
+				j--;
+			}
+			a[j] = p;
+		}
+	}
+
+	/** Compares the suffixes starting at p and q from depth d up to SORT_DEPTH. */
+	private static int compare(SegmentedText t, long n, long p, long q, int d) {
+		for (; d < SORT_DEPTH; d++) {
+			int x = charAt(t, n, p, d), y = charAt(t, n, q, d);
+			if (x != y || x < 0)
+				return x - y;
+		}
+		return 0;
+	}
+
+	/**
+	 * Sorts pos[0..m-1] by the keys key[0..m-1], which are moved with them,
+	 * by quicksort with an explicit stack, partitioning three ways so that
+	 * runs of equal keys cost nothing further.
+	 */
+	private static void sortByKey(long [] pos, long [] key, int m) {
+		IntList stack = new IntList();
+		stack.add(0);
+		stack.add(m);
+
+		while (stack.size() > 0) {
+			int hi = stack.removeLast();
+			int lo = stack.removeLast();
+
+			if (hi - lo < INSERTION_THRESHOLD) {
+				for (int i = lo + 1; i < hi; i++) {
+					long p = pos[i], k = key[i];
+					int j = i;
+					while (j > lo && key[j - 1] > k) {
+						pos[j] = pos[j - 1];
+						key[j] = key[j - 1];
+						j--;
+					}
+					pos[j] = p;
+					key[j] = k;
+				}
+				continue;
+			}
+
+			long pivot = key[lo + (hi - lo) / 2];
+			int lt = lo, gt = hi, i = lo;
+			while (i < gt) {
+				if (key[i] < pivot) {
+					swap(pos, lt, i);
+					swap(key, lt++, i++);
+				}
+				else if (key[i] > pivot) {
+					swap(pos, i, --gt);
+					swap(key, i, gt);
+				}
+				else
+					i++;
+			}
+			stack.add(lo);
+			stack.add(lt);
+			stack.add(gt);
+			stack.add(hi);
+		}
+	}
+
+	/** Gets entry i of an array of entries of width w. */
+	private static long get(SegmentedText array, long i, int w) {
+		return w == 4 ? array.intAt(4 * i) : array.longAt(8 * i);
+	}
+
+	/** Sets entry i of an array of entries of width w. */
+	private static void put(SegmentedText array, long i, long v, int w) {
+		if (w == 4)
+			array.putInt(4 * i, (int) v);
+		else
+			array.putLong(8 * i, v);
+	}
+
+	/** Exchanges two entries of an array. */
+	private static void swap(long [] a, int i, int j) {
+		long x = a[i];
+		a[i] = a[j];
+		a[j] = x;
+	}
+
+	/** Writes the contents of the buffer to the channel and clears the buffer. */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Class dividing the suffixes of a text into ranges by their leading
+	 * characters, so that no range holds more than a given number of
+	 * suffixes.  The ranges are the leaves of a trie: the top level has a
+	 * slot for each bucket of two characters (see bucket), and a range that
+	 * is too large is replaced by a node with a slot for each next character
+	 * and one for a suffix that has ended, whose ranges are counted in
+	 * another pass over the text.  Once every range fits, the ranges are
+	 * numbered in lexicographic order of the suffixes in them.
+	 */
+	private static final class Ranges {
+
+		/** The text. */
+		private SegmentedText text;
+
+		/** Length of the text. */
+		private long stringLen;
+
+		/** Slots of the top level, one per bucket: a range if >= 0, otherwise -1 - the node split from it. */
+		private int [] top;
+
+		/** Slots of each node, one for a suffix that has ended and then one per character, as for top. */
+		private ArrayList<int []> nodes;
+
+		/** Number of suffixes in each range. */
+		private long [] count;
+
+		/** Number of leading characters shared by the suffixes of each range. */
+		private int [] depth;
+
+		/** Number of ranges. */
+		private int size;
+
+		/** Number of suffixes in the ranges before each range, once they are numbered in order. */
+		private long [] start;
+
+		/**
+		 * Divides the suffixes of a text into ranges of at most max suffixes.
+		 * 
+		 * @param t the text
+		 * @param n the length of the text
+		 * @param max the largest number of suffixes in a range
+		 * @throws IllegalArgumentException if more than max suffixes share
+		 * their first MAX_PREFIX characters
+		 */
+		Ranges(SegmentedText t, long n, long max) {
+			text = t;
+			stringLen = n;
+			top = new int[BUCKETS];
+			nodes = new ArrayList<int []>();
+			count = new long[BUCKETS];
+			depth = new int[BUCKETS];
+			for (int b = 0; b < BUCKETS; b++) {
+				top[b] = b;
+				depth[b] = 2;
+			}
+			size = BUCKETS;
+			for (long p = 0; p < n; p++)
+				count[bucket(t, n, p)]++;
+
+			// split the ranges that are too large by one more character in each pass
+			while (true) {
+				int first = size, splitNodes = nodes.size();
+				split(top, max);
+				for (int i = 0; i < splitNodes; i++)
+					split(nodes.get(i), max);
+				if (size == first)
+					break;
+				for (long p = 0; p < n; p++) {
+					int r = find(p);
+					if (r >= first)
+						count[r]++;
+				}
+			}
+
+			// number the ranges in order
+			long [] oldCount = count;
+			int [] oldDepth = depth;
+			count = new long[size];
+			depth = new int[size];
+			size = number(top, oldCount, oldDepth, 0);
+			start = new long[size + 1];
+			for (int r = 0; r < size; r++)
+				start[r + 1] = start[r] + count[r];
+		}
+
+		/**
+		 * Gets the range of the suffix starting at position p.
+		 * 
+		 * @param p a position in the text
+		 * @return the range
+		 */
+		int find(long p) {
+			int r = top[bucket(text, stringLen, p)];
+			for (int d = 2; r < 0; d++)
+				r = nodes.get(-1 - r)[charAt(text, stringLen, p, d) + 1];
+			return r;
+		}
+
+		/**
+		 * Gets the number of ranges.
+		 * 
+		 * @return the number of ranges
+		 */
+		int size() { return size; }
+
+		/**
+		 * Gets the number of leading characters shared by the suffixes of a range.
+		 * 
+		 * @param r a range
+		 * @return the number of characters
+		 */
+		int getDepth(int r) { return depth[r]; }
+
+		/**
+		 * Gets the starts of the ranges in the suffix array.
+		 * 
+		 * @return the number of suffixes before each range, followed by the
+		 * number of suffixes
+		 */
+		long [] getStarts() { return start; }
+
+		/**
+		 * Replaces each range in the slots holding more than max suffixes
+		 * by a node with an empty range for each character.
+		 */
+		private void split(int [] slots, long max) {
+			for (int c = 0; c < slots.length; c++) {
+				int r = slots[c];
+				if (r >= 0 && count[r] > max) {
+					if (depth[r] >= MAX_PREFIX)
+						throw new IllegalArgumentException("more than " + max + " suffixes share their first "
+								+ MAX_PREFIX + " characters, so the budget is too small");
+					int [] node = new int[257];
+					for (int ch = 0; ch < node.length; ch++)
+						node[ch] = add(depth[r] + 1);
+					slots[c] = -1 - nodes.size();
+					nodes.add(node);
+				}
+			}
+		}
+
+		/**
+		 * Adds an empty range of suffixes sharing d characters.
+		 */
+		private int add(int d) {
+			if (size == count.length) {
+				count = Arrays.copyOf(count, 2 * size);
+				depth = Arrays.copyOf(depth, 2 * size);
+			}
+			count[size] = 0;
+			depth[size] = d;
+			return size++;
+		}
+
+		/**
+		 * Numbers the ranges below the slots in order from next, taking
+		 * their counts and depths from the arrays indexed by their old
+		 * numbers, and returns the next number.
+		 */
+		private int number(int [] slots, long [] oldCount, int [] oldDepth, int next) {
+			for (int c = 0; c < slots.length; c++) {
+				int r = slots[c];
+				if (r < 0)
+					next = number(nodes.get(-1 - r), oldCount, oldDepth, next);
+				else {
+					count[next] = oldCount[r];
+					depth[next] = oldDepth[r];
+					slots[c] = next++;
+				}
+			}
+			return next;
+		}
+	}
+}
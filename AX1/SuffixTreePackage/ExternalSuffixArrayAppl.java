@@ -0,0 +1,237 @@
+package SuffixTreePackage;
+
+/**
+ * Class with methods for carrying out the suffix tree applications using
+ * a suffix array built on disk (see ExternalSuffixArray).
+ * 
+ * Searching is by binary search, as in SuffixArrayAppl, reading the text
+ * and suffix array through their mappings.  The longest repeated substring
+ * is found by one scan of the LCP array stored with the suffix array.
+ * The index covers a single text, so it is not a CommonSubstringIndex.
+ * 
+ * Positions and counts are longs throughout, so that texts of more than
+ * 2^31 bytes are served by the TextIndex methods as well as by
+ * findInterval and locate.
+ */
+
+public class ExternalSuffixArrayAppl implements RepeatIndex {
+
+	/** The suffix array */
+	private ExternalSuffixArray a;
+
+	/**
+	 * Default constructor.
+	 */
+	public ExternalSuffixArrayAppl () {
+		a = null;
+	}
+
+	/**
+	 * Constructor with parameter.
+	 * 
+	 * @param array the suffix array
+	 */
+	public ExternalSuffixArrayAppl (ExternalSuffixArray array) {
+		a = array;
+	}
+
+	/**
+	 * Search the suffix array for a target x, as in
+	 * SuffixArrayAppl.searchSuffixTree.  Task1Info.matchNode is always null.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchSuffixTree(byte[] x) {
+		Task1Info t1Info = new Task1Info();
+		long lo = lowerBound(x);
+
+		if (lo < upperBound(x))
+			t1Info.setPos(a.getSuffix(lo));
+		return t1Info;
+	}
+
+	/**
+	 * Search the suffix array for all occurrences of target x, in
+	 * lexicographic order of the suffixes starting at them.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task2Info object
+	 */
+	public Task2Info allOccurrences(byte[] x) {
+		Task2Info t2Info = new Task2Info();
+		forEachOccurrence(x, t2Info);
+		return t2Info;
+	}
+
+	/**
+	 * Passes each occurrence of target x to a visitor, in lexicographic
+	 * order of the suffixes starting at them.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor
+	 */
+	public void forEachOccurrence(byte[] x, OccurrenceVisitor v) {
+		long hi = upperBound(x);
+
+		for (long i = lowerBound(x); i < hi; i++)
+			if (!v.visit(a.getSuffix(i)))
+				return;
+	}
+
+	/**
+	 * Finds one page of the occurrences of target x, which is a slice of
+	 * the interval of the suffix array whose suffixes have x as a prefix.
+	 * 
+	 * @param x the target string to search for
+	 * @param offset the number of occurrences to pass over
+	 * @param limit the maximum number of occurrences to return
+	 * 
+	 * @return the starting positions of the occurrences in the page
+	 */
+	public long[] allOccurrences(byte[] x, long offset, int limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("offset and limit must not be negative");
+		long lo = lowerBound(x), hi = upperBound(x);
+		long from = Math.min(lo + offset, hi);
+		long to = Math.min(from + limit, hi);
+		long [] page = new long[(int) (to - from)];
+
+		for (long i = from; i < to; i++)
+			page[(int) (i - from)] = a.getSuffix(i);
+		return page;
+	}
+
+	/**
+	 * Counts the occurrences of target x, which is the width of the
+	 * interval of the suffix array whose suffixes have x as a prefix.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return the number of occurrences of x
+	 */
+	public long countOccurrences(byte[] x) {
+		return upperBound(x) - lowerBound(x);
+	}
+
+	/**
+	 * Searches for a target x and counts its occurrences, as in
+	 * SuffixArrayAppl.searchAndCount.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchAndCount(byte[] x) {
+		Task1Info t1Info = new Task1Info();
+		long lo = lowerBound(x), hi = upperBound(x);
+
+		if (lo < hi) {
+			t1Info.setPos(a.getSuffix(lo));
+			t1Info.setCount(hi - lo);
+		}
+		return t1Info;
+	}
+
+	/**
+	 * Finds the interval of the suffix array whose suffixes have target x
+	 * as a prefix.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return {first index, last index + 1}, which are equal if x does not occur
+	 */
+	public long[] findInterval(byte[] x) {
+		return new long[] {lowerBound(x), upperBound(x)};
+	}
+
+	/**
+	 * Gets the starting position of the suffix at an index of the suffix array.
+	 * 
+	 * @param i an index of the suffix array
+	 * 
+	 * @return the starting position of the i-th smallest suffix
+	 */
+	public long locate(long i) {
+		return a.getSuffix(i);
+	}
+
+	/**
+	 * Finds ln, p1 and p2 as in SuffixArrayAppl.traverseForLrs, reading
+	 * the longest common prefix of each pair of adjacent suffixes from the
+	 * LCP array.  A repeat longer than Integer.MAX_VALUE is reported as
+	 * being of that length.
+	 * 
+	 * @return a Task3Info object
+	 */
+	public Task3Info traverseForLrs () {
+		Task3Info t3Info = new Task3Info();
+		long n = a.getStringLen(), best = 0, at = 0;
+
+		for (long i = 1; i < n; i++) {
+			long len = a.getLcp(i);
+			if (len > best) {
+				best = len;
+				at = i;
+			}
+		}
+		if (best > 0) {
+			t3Info.setLen((int) Math.min(best, Integer.MAX_VALUE));
+			t3Info.setPos1(a.getSuffix(at - 1));
+			t3Info.setPos2(a.getSuffix(at));
+		}
+		return t3Info;
+	}
+
+	/**
+	 * Finds the first index of the suffix array whose suffix is not
+	 * smaller than x.
+	 */
+	private long lowerBound(byte[] x) {
+		long lo = 0, hi = a.getStringLen();
+		while (lo < hi) {
+			long mid = (lo + hi) >>> 1;
+			if (compare(a.getSuffix(mid), x) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Finds the first index of the suffix array whose suffix is greater
+	 * than x and does not have x as a prefix.
+	 */
+	private long upperBound(byte[] x) {
+		long lo = 0, hi = a.getStringLen();
+		while (lo < hi) {
+			long mid = (lo + hi) >>> 1;
+			if (compare(a.getSuffix(mid), x) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Compares the suffix starting at position p with x, considering only
+	 * the first x.length characters of the suffix; returns 0 if x is a
+	 * prefix of the suffix.  The end of the text compares smaller than
+	 * every character.
+	 */
+	private int compare(long p, byte[] x) {
+		long end = a.getStringLen();
+		for (int i = 0; i < x.length; i++) {
+			if (p + i >= end)
+				return -1;
+			int c = (a.byteAt(p + i) & 0xff) - (x[i] & 0xff);
+			if (c != 0)
+				return c;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,280 @@
+package SuffixTreePackage;
+
+/**
+ * Class for a compressed full-text index (FM-index) of a string, built
+ * from its suffix array, for when neither a suffix tree nor a suffix
+ * array of the string fits in memory.
+ * 
+ * The index holds the Burrows-Wheeler transform (BWT) of s, whose i-th
+ * character is the one preceding the i-th smallest suffix, in a wavelet
+ * matrix: eight bit vectors with rank support, one per bit of a
+ * character, so that the number of occurrences of any character before a
+ * given row is found in eight rank queries.  The interval of rows whose
+ * suffixes start with a target x is then found by backward search in
+ * O(m) such steps for a target of length m, without the string itself.
+ * 
+ * To locate an occurrence, the rows whose suffixes start at a multiple of
+ * sampleRate are marked and their positions kept; from any other row the
+ * LF mapping (from the row of suffix i to that of suffix i-1) is followed
+ * until a marked row is reached, in fewer than sampleRate steps.
+ * 
+ * The rows are those of SuffixArray, with the termination character
+ * smaller than every other character, so positions agree with the other
+ * indexes.  The index takes about 1.06 bytes per character, plus about
+ * 4.13/sampleRate for locating.
+ */
+
+public class FMIndex {
+
+	/** Default distance between sampled positions. */
+	public static final int DEFAULT_SAMPLE_RATE = 32;
+
+	/** Number of bits in a character, and so of levels in the wavelet matrix. */
+	private static final int LEVELS = 8;
+
+	/** Length of string corresponding to the index (without termination character). */
+	private int stringLen;
+
+	/** Number of rows: the number of suffixes, including the termination character alone. */
+	private int rows;
+
+	/** The row whose suffix is the whole string, which is preceded by no character. */
+	private int primary;
+
+	/** c[x] is the first row whose suffix starts with character x (c[256] = rows). */
+	private int [] c;
+
+	/** The bit vectors of the wavelet matrix, most significant bit first. */
+	private RankBitVector [] levels;
+
+	/** zeros[l] is the number of 0s in levels[l]. */
+	private int [] zeros;
+
+	/** bottom[x] is where the rows holding character x start after the last level. */
+	private int [] bottom;
+
+	/** Distance between sampled positions. */
+	private int sampleRate;
+
+	/** The rows whose suffixes start at a multiple of sampleRate. */
+	private RankBitVector marked;
+
+	/** samples[k] is the starting position of the suffix of the k-th marked row. */
+	private int [] samples;
+
+	/**
+	 * Builds the index for a given string, with the default sample rate.
+	 * 
+	 * @param sInput the string to be indexed
+	 */
+	public FMIndex (byte [] sInput) {
+		this(new SuffixArray(sInput), DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Builds the index from the suffix array of a string, which is not
+	 * needed once the index has been built.
+	 * 
+	 * @param a the suffix array of the string
+	 * @param rate the distance between sampled positions: larger values
+	 * make the index smaller and locating slower
+	 */
+	public FMIndex (SuffixArray a, int rate) {
+		if (rate < 1)
+			throw new IllegalArgumentException("sample rate " + rate);
+		byte [] s = a.getString();
+		int [] sa = a.getSuffixArray();
+		stringLen = a.getStringLen();
+		rows = sa.length;
+		sampleRate = rate;
+
+		// the BWT, with 0 standing in for the missing character at the primary row
+		byte [] bwt = new byte[rows];
+		for (int i = 0; i < rows; i++)
+			if (sa[i] == 0)
+				primary = i;
+			else
+				bwt[i] = s[sa[i] - 1];
+
+		c = new int[257];
+		for (int i = 0; i < stringLen; i++)
+			c[(s[i] & 0xff) + 1]++;
+		c[0] = 1;   // the termination character alone comes first
+		for (int x = 1; x <= 256; x++)
+			c[x] += c[x - 1];
+
+		buildWaveletMatrix(bwt);
+		buildSamples(sa);
+	}
+
+	/**
+	 * Builds the wavelet matrix of the BWT: each level holds one bit of
+	 * each character, and between levels the characters are stably
+	 * partitioned by that bit.
+	 */
+	private void buildWaveletMatrix(byte [] bwt) {
+		byte [] cur = bwt, next = new byte[rows];
+		levels = new RankBitVector[LEVELS];
+		zeros = new int[LEVELS];
+
+		for (int l = 0; l < LEVELS; l++) {
+			int shift = LEVELS - 1 - l, z = 0;
+			levels[l] = new RankBitVector(rows);
+			for (int i = 0; i < rows; i++)
+				if (((cur[i] >>> shift) & 1) == 0)
+					z++;
+				else
+					levels[l].set(i);
+			levels[l].buildRanks();
+			zeros[l] = z;
+
+			int zi = 0, oi = z;
+			for (int i = 0; i < rows; i++)
+				if (((cur[i] >>> shift) & 1) == 0)
+					next[zi++] = cur[i];
+				else
+					next[oi++] = cur[i];
+			byte [] t = cur;
+			cur = next;
+			next = t;
+		}
+
+		bottom = new int[256];
+		for (int x = 0; x < 256; x++)
+			bottom[x] = walk(x, 0);
+	}
+
+	/**
+	 * Marks the rows whose suffixes start at a multiple of sampleRate and
+	 * keeps their starting positions.
+	 */
+	private void buildSamples(int [] sa) {
+		marked = new RankBitVector(rows);
+		samples = new int[(rows + sampleRate - 1) / sampleRate];
+		for (int i = 0; i < rows; i++)
+			if (sa[i] % sampleRate == 0)
+				marked.set(i);
+		marked.buildRanks();
+		for (int i = 0, k = 0; i < rows; i++)
+			if (sa[i] % sampleRate == 0)
+				samples[k++] = sa[i];
+	}
+
+	/**
+	 * Follows character x down the wavelet matrix from position i of the
+	 * first level; the result less bottom[x] is the number of occurrences
+	 * of x in the first i rows of the BWT.
+	 */
+	private int walk(int x, int i) {
+		for (int l = 0; l < LEVELS; l++)
+			if (((x >>> (LEVELS - 1 - l)) & 1) == 0)
+				i = levels[l].rank0(i);
+			else
+				i = zeros[l] + levels[l].rank1(i);
+		return i;
+	}
+
+	/**
+	 * Counts the occurrences of character x in the first i rows of the BWT.
+	 * 
+	 * @param x the character (0 to 255)
+	 * @param i the number of rows
+	 * @return the number of occurrences of x
+	 */
+	public int rank(int x, int i) {
+		int r = walk(x, i) - bottom[x];
+		if (x == 0 && primary < i)
+			r--;  // the primary row holds a stand-in 0
+		return r;
+	}
+
+	/**
+	 * Finds the row of the suffix one position before that of a given row
+	 * (the LF mapping), reading the BWT character and ranking it in the
+	 * same pass down the wavelet matrix.
+	 * 
+	 * @param i a row other than the primary row
+	 * @return the row of suffix sa[i]-1
+	 */
+	public int lf(int i) {
+		int x = 0, p = i;
+		for (int l = 0; l < LEVELS; l++)
+			if (!levels[l].get(p)) {
+				x <<= 1;
+				p = levels[l].rank0(p);
+			}
+			else {
+				x = x << 1 | 1;
+				p = zeros[l] + levels[l].rank1(p);
+			}
+		int r = p - bottom[x];
+		if (x == 0 && primary < i)
+			r--;
+		return c[x] + r;
+	}
+
+	/**
+	 * Finds, by backward search, the interval of rows whose suffixes have
+	 * target x as a prefix.
+	 * 
+	 * @param x the target string to search for
+	 * @return {first row, last row + 1}, which are equal if x does not occur
+	 */
+	public int[] findInterval(byte [] x) {
+		int sp = 0, ep = rows;
+		for (int k = x.length - 1; k >= 0 && sp < ep; k--) {
+			int ch = x[k] & 0xff;
+			sp = c[ch] + rank(ch, sp);
+			ep = c[ch] + rank(ch, ep);
+		}
+		return new int[] {sp, Math.max(sp, ep)};
+	}
+
+	/**
+	 * Finds the starting position of the suffix of a given row.
+	 * 
+	 * @param i a row
+	 * @return the starting position (counting from 0)
+	 */
+	public int locate(int i) {
+		int steps = 0;
+		while (!marked.get(i)) {
+			i = lf(i);
+			steps++;
+		}
+		return samples[marked.rank1(i)] + steps;
+	}
+
+	/**
+	 * Gets the approximate memory taken by the index.
+	 * 
+	 * @return the size in bytes
+	 */
+	public long getSizeInBytes() {
+		long size = 4L * (c.length + zeros.length + bottom.length + samples.length);
+		for (RankBitVector v : levels)
+			size += v.getSizeInBytes();
+		return size + marked.getSizeInBytes();
+	}
+
+	/**
+	 * Gets the number of rows.
+	 * 
+	 * @return the number of suffixes, including the termination character alone
+	 */
+	public int getRows() { return rows; }
+
+	/**
+	 * Gets the length of the string.
+	 * 
+	 * @return the length of the string (without termination character)
+	 */
+	public int getStringLen() { return stringLen; }
+
+	/**
+	 * Gets the distance between sampled positions.
+	 * 
+	 * @return the sample rate
+	 */
+	public int getSampleRate() { return sampleRate; }
+}
@@ -0,0 +1,134 @@
+package SuffixTreePackage;
+
+/**
+ * Class with methods for carrying out the searching applications (Tasks
+ * 1 and 2) using an FM-index, which does not keep the string.
+ * 
+ * Counting takes O(m) rank queries for a target of length m; each
+ * occurrence then takes fewer than FMIndex.getSampleRate() LF steps to
+ * locate.  The longest repeated and longest common substrings need the
+ * LCP information that the FM-index leaves out, so it implements TextIndex
+ * alone, and not RepeatIndex or CommonSubstringIndex.
+ */
+
+public class FMIndexAppl implements TextIndex {
+
+	/** The FM-index */
+	private FMIndex f;
+
+	/**
+	 * Default constructor.
+	 */
+	public FMIndexAppl () {
+		f = null;
+	}
+
+	/**
+	 * Constructor with parameter.
+	 * 
+	 * @param index the FM-index
+	 */
+	public FMIndexAppl (FMIndex index) {
+		f = index;
+	}
+
+	/**
+	 * Search the FM-index of string s for a target x, as in
+	 * SuffixArrayAppl.searchSuffixTree.  Task1Info.matchNode is always null.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchSuffixTree(byte[] x) {
+		Task1Info t1Info = new Task1Info();
+		int [] range = f.findInterval(x);
+
+		if (range[0] < range[1])
+			t1Info.setPos(f.locate(range[0]));
+		return t1Info;
+	}
+
+	/**
+	 * Search the FM-index of string s for all occurrences of target x, in
+	 * lexicographic order of the suffixes starting at them.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task2Info object
+	 */
+	public Task2Info allOccurrences(byte[] x) {
+		Task2Info t2Info = new Task2Info();
+		forEachOccurrence(x, t2Info);
+		return t2Info;
+	}
+
+	/**
+	 * Passes each occurrence of target x to a visitor, in lexicographic
+	 * order of the suffixes starting at them, locating each in turn.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor
+	 */
+	public void forEachOccurrence(byte[] x, OccurrenceVisitor v) {
+		int [] range = f.findInterval(x);
+
+		for (int i = range[0]; i < range[1]; i++)
+			if (!v.visit(f.locate(i)))
+				return;
+	}
+
+	/**
+	 * Finds one page of the occurrences of target x, locating only the
+	 * occurrences in the page.
+	 * 
+	 * @param x the target string to search for
+	 * @param offset the number of occurrences to pass over
+	 * @param limit the maximum number of occurrences to return
+	 * 
+	 * @return the starting positions of the occurrences in the page
+	 */
+	public long[] allOccurrences(byte[] x, long offset, int limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("offset and limit must not be negative");
+		int [] range = f.findInterval(x);
+		int from = (int) Math.min(range[0] + offset, range[1]);
+		int to = (int) Math.min((long) from + limit, range[1]);
+		long [] page = new long[to - from];
+
+		for (int i = from; i < to; i++)
+			page[i - from] = f.locate(i);
+		return page;
+	}
+
+	/**
+	 * Counts the occurrences of target x by backward search alone.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return the number of occurrences of x
+	 */
+	public long countOccurrences(byte[] x) {
+		int [] range = f.findInterval(x);
+		return range[1] - range[0];
+	}
+
+	/**
+	 * Searches for a target x and counts its occurrences, as in
+	 * SuffixTreeAppl.searchAndCount, from one backward search.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchAndCount(byte[] x) {
+		Task1Info t1Info = new Task1Info();
+		int [] range = f.findInterval(x);
+
+		if (range[0] < range[1]) {
+			t1Info.setPos(f.locate(range[0]));
+			t1Info.setCount(range[1] - range[0]);
+		}
+		return t1Info;
+	}
+}
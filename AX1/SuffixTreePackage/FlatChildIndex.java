@@ -0,0 +1,114 @@
+package SuffixTreePackage;
+
+import java.util.Arrays;
+
+/**
+ * Class for indexing the children of the nodes of a FlatSuffixTree by the
+ * first characters of their edge labels, the counterpart of ChildIndex
+ * for trees held in arrays.
+ * 
+ * A single hash table, keyed by node and character, serves every node of
+ * the tree: it is an open-addressing table with linear probing, whose keys
+ * pack the handle of a node and a character into a long, and whose values
+ * are the handles of the children.  The table is kept at most half full,
+ * being doubled in size as entries are added.  Only the children of nodes
+ * of high fan-out are entered, so that it holds a small fraction of the
+ * nodes of most trees.
+ */
+
+final class FlatChildIndex {
+
+	/** Key marking an empty slot. */
+	private static final long EMPTY = -1;
+
+	/** Number of slots for which room is first made. */
+	static final int INITIAL_CAPACITY = 1 << 10;
+
+	/** Node and character of each slot, as (v << 8) | ch (EMPTY for an empty slot). */
+	private long [] keys;
+
+	/** Child held in each slot. */
+	private int [] values;
+
+	/** Number of entries. */
+	private int size;
+
+	/**
+	 * Instantiates an empty index.
+	 */
+	FlatChildIndex() {
+		keys = new long[INITIAL_CAPACITY];
+		values = new int[INITIAL_CAPACITY];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Finds the child of a node whose edge label starts with a given character.
+	 * 
+	 * @param v a node
+	 * @param ch the character, as an unsigned byte
+	 * @return the child (FlatSuffixTree.NONE if there is none)
+	 */
+	int get(int v, int ch) {
+		long key = ((long) v << 8) | ch;
+		int mask = keys.length - 1;
+		for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+			if (keys[i] == key)
+				return values[i];
+			if (keys[i] == EMPTY)
+				return FlatSuffixTree.NONE;
+		}
+	}
+
+	/**
+	 * Adds the child of a node whose edge label starts with a given
+	 * character, or replaces the child whose edge label starts with it.
+	 * 
+	 * @param v a node
+	 * @param ch the character, as an unsigned byte
+	 * @param c the child
+	 */
+	void put(int v, int ch, int c) {
+		if (2 * (size + 1) > keys.length)
+			resize(2 * keys.length);
+		long key = ((long) v << 8) | ch;
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		while (keys[i] != key && keys[i] != EMPTY)
+			i = (i + 1) & mask;
+		if (keys[i] == EMPTY) {
+			keys[i] = key;
+			size++;
+		}
+		values[i] = c;
+	}
+
+	/**
+	 * Moves the entries into a table with a given number of slots.
+	 */
+	private void resize(int capacity) {
+		long [] oldKeys = keys;
+		int [] oldValues = values;
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+		int mask = capacity - 1;
+		for (int k = 0; k < oldKeys.length; k++)
+			if (oldKeys[k] != EMPTY) {
+				int i = slot(oldKeys[k], mask);
+				while (keys[i] != EMPTY)
+					i = (i + 1) & mask;
+				keys[i] = oldKeys[k];
+				values[i] = oldValues[k];
+			}
+	}
+
+	/**
+	 * Gets the first slot probed for a key, mixing its bits so that the
+	 * children of consecutive nodes are spread over the table.
+	 */
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & mask;
+	}
+}
@@ -0,0 +1,613 @@
+package SuffixTreePackage;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+
+/**
+ * Class for construction of suffix trees whose nodes are held in parallel
+ * arrays of ints rather than as SuffixTreeNode objects.
+ * 
+ * Each node is identified by an int handle, being its index into the
+ * arrays child, sibling, leftLabel, rightLabel and suffix; these hold the
+ * same information as the corresponding fields of SuffixTreeNode, with
+ * NONE in place of a null reference.  The root has handle 0.  For a
+ * generalised tree the two Longest Common Substring flags of every node
+ * are packed into a bitset, two bits per node.  The string and the arrays
+ * are held in buffers, which wrap arrays on the heap for a tree built here
+ * and are memory-mapped sections of the file for a tree loaded from an
+ * index file (see IndexFile), so that both are read the same way.
+ * 
+ * The tree is built by Ukkonen's algorithm (see IntUkkonenBuilder) writing
+ * directly into the arrays through an IntNodeStore, so no node objects are
+ * allocated and no handle is boxed; suffix links are needed during
+ * construction only and are discarded afterwards.  The children of each node with more than
+ * SuffixTreeNode.INDEX_THRESHOLD children are also entered in a
+ * FlatChildIndex, so that both construction and searchChild find a child
+ * in O(1) time rather than by scanning the list of children.  A tree may also be
+ * copied from a SuffixTree, or saved to and loaded from an index file.
+ */
+
+public class FlatSuffixTree {
+
+	/** Handle representing the absence of a node. */
+	public static final int NONE = -1;
+
+	/** String corresponding to suffix tree, including termination characters. */
+	private ByteBuffer text;
+
+	/** Length of string corresponding to suffix tree (without termination characters). */
+	private int stringLen;
+
+	/** Head of list of children of each node. */
+	private IntBuffer child;
+
+	/** Sibling of each node. */
+	private IntBuffer sibling;
+
+	/** Left and right extents of the full edge label above each node. */
+	private IntBuffer leftLabel;
+	private IntBuffer rightLabel;
+
+	/** Suffix number of each node (-1 for branch nodes). */
+	private IntBuffer suffix;
+
+	/** Bits 2v and 2v+1 record whether node v has a descendant leaf in the first / second string (null if there are none). */
+	private LongBuffer lcsFlags;
+
+	/** Nodes whose children are entered in childIndex (null if there are none). */
+	private BitSet indexed;
+
+	/** Index of the children of nodes of high fan-out (null if there are none). */
+	private FlatChildIndex childIndex;
+
+	/** Number of leaves in the subtree rooted at each node (null until first needed). */
+	private volatile int [] leafCount;
+
+	/** Number of nodes, including the root. */
+	private int nodeCount;
+
+	/**
+	 * Instantiates a tree over storage read from an index file.
+	 * 
+	 * @param textIn the string, including termination characters
+	 * @param len the length of the string without termination characters
+	 * @param nodes the number of nodes
+	 * @param arrays the child, sibling, leftLabel, rightLabel and suffix arrays
+	 * @param flags the LCS flags (null if there are none)
+	 */
+	FlatSuffixTree (ByteBuffer textIn, int len, int nodes, IntBuffer [] arrays, LongBuffer flags) {
+		text = textIn;
+		stringLen = len;
+		nodeCount = nodes;
+		child = arrays[0];
+		sibling = arrays[1];
+		leftLabel = arrays[2];
+		rightLabel = arrays[3];
+		suffix = arrays[4];
+		lcsFlags = flags;
+	}
+
+	/**
+	 * Copies a suffix tree built from SuffixTreeNode objects, numbering its
+	 * nodes in breadth-first order so that the children of each node have
+	 * consecutive handles.
+	 * 
+	 * @param tree the suffix tree to copy
+	 */
+	public FlatSuffixTree (SuffixTree tree) {
+		byte [] s = tree.getString();
+		stringLen = tree.getStringLen();
+
+		// count the nodes
+		ArrayDeque<SuffixTreeNode> queue = new ArrayDeque<SuffixTreeNode>();
+		queue.add(tree.getRoot());
+		while (!queue.isEmpty())
+			for (SuffixTreeNode c = queue.poll().getChild(); c != null; c = c.getSibling()) {
+				nodeCount++;
+				queue.add(c);
+			}
+		nodeCount++;   // the root
+
+		int [] child = new int[nodeCount];
+		int [] sibling = new int[nodeCount];
+		int [] leftLabel = new int[nodeCount];
+		int [] rightLabel = new int[nodeCount];
+		int [] suffix = new int[nodeCount];
+		long [] flags = null;
+		SuffixTreeNode root = tree.getRoot();
+		if (root.getLeafNodeString1() || root.getLeafNodeString2())
+			flags = new long[(2 * nodeCount + 63) >>> 6];
+
+		// copy the nodes in the order in which they are numbered
+		int next = 1;
+		queue.add(root);
+		for (int v = 0; v < nodeCount; v++) {
+			SuffixTreeNode node = queue.poll();
+			leftLabel[v] = node.getLeftLabel();
+			rightLabel[v] = node.getRightLabel();
+			suffix[v] = node.getSuffix();
+			sibling[v] = node.getSibling() == null || v == 0 ? NONE : v + 1;
+			child[v] = node.getChild() == null ? NONE : next;
+			for (SuffixTreeNode c = node.getChild(); c != null; c = c.getSibling()) {
+				queue.add(c);
+				next++;
+			}
+			if (flags != null) {
+				if (node.getLeafNodeString1())
+					setFlag(flags, 2 * v);
+				if (node.getLeafNodeString2())
+					setFlag(flags, 2 * v + 1);
+			}
+		}
+		wrap(s, child, sibling, leftLabel, rightLabel, suffix);
+		if (flags != null)
+			lcsFlags = LongBuffer.wrap(flags);
+
+		// index the children of nodes of high fan-out, as the tree would have been built
+		for (int v = 0; v < nodeCount; v++) {
+			int count = 0;
+			for (int c = child[v]; c != NONE; c = sibling[c])
+				count++;
+			if (count > SuffixTreeNode.INDEX_THRESHOLD)
+				index(v);
+		}
+	}
+
+	/**
+	 * Builds the suffix tree for a given string.
+	 * 
+	 * @param sInput the string whose suffix tree is to be built
+	 * - assumes that '$' does not occur as a character anywhere in sInput
+	 * - assumes that characters of sInput occupy positions 0 onwards
+	 */
+	public FlatSuffixTree (byte [] sInput) {
+		this(sInput, sInput.length);
+	}
+
+	/**
+	 * Builds the suffix tree for the string held in the first len positions
+	 * of an array, which is copied.
+	 * 
+	 * @param sBuffer the array holding the string whose suffix tree is to be built
+	 * - assumes that '$' does not occur as a character anywhere in sBuffer[0..len-1]
+	 * @param len the length of the string
+	 */
+	public FlatSuffixTree (byte [] sBuffer, int len) {
+		this(sBuffer, len, false);
+	}
+
+	/**
+	 * Builds the suffix tree for the string held in the first len positions
+	 * of an array, optionally taking the array over as the string of the
+	 * suffix tree (as in SuffixTree(byte[], int, BuildMethod, boolean)).
+	 * 
+	 * @param sBuffer the array holding the string whose suffix tree is to be built
+	 * - assumes that '$' does not occur as a character anywhere in sBuffer[0..len-1]
+	 * @param len the length of the string
+	 * @param adopt true to take the array over, false to copy it
+	 * @throws IllegalArgumentException if the array is to be taken over but
+	 * its length is not len + 1
+	 */
+	public FlatSuffixTree (byte [] sBuffer, int len, boolean adopt) {
+		byte [] s;
+		stringLen = len;
+		if (adopt) {
+			if (sBuffer.length != stringLen + 1)
+				throw new IllegalArgumentException("an adopted array must have exactly one position more than the string");
+			s = sBuffer;             // the buffer already has room for the termination character
+		}
+		else {
+			s = new byte[stringLen + 1]; // create longer byte array ready for termination character
+			System.arraycopy(sBuffer, 0, s, 0, stringLen);
+		}
+		s[stringLen] = (byte) '$';   // append termination character to original string
+
+		for (int i = 0; i < stringLen; i++)
+			if (s[i] == (byte) '$')
+				throw new IllegalArgumentException("Text file contains a $ character!");
+		build(s, stringLen);
+	}
+
+	/**
+	 * Builds a generalised suffix tree for two given strings.
+	 * 
+	 * @param sInput1 the first string
+	 * @param sInput2 the second string
+	 * - assumes that '$' and '#' do not occur as a character anywhere in sInput1 or sInput2
+	 * - assumes that characters of sInput1 and sInput2 occupy positions 0 onwards
+	 */
+	public FlatSuffixTree (byte[] sInput1, byte[] sInput2) {
+		int len1 = sInput1.length;
+		stringLen = len1 + sInput2.length;
+		byte [] s = new byte[stringLen + 2]; // create longer byte array ready for termination characters
+
+		System.arraycopy(sInput1, 0, s, 0, len1);
+		s[len1] = (byte) '#';   // append termination character to original string
+
+		System.arraycopy(sInput2, 0, s, len1 + 1, sInput2.length);
+		s[stringLen + 1] = (byte) '$';   // append termination character to original string
+
+		for (int i = 0; i <= stringLen; i++)
+			if ( (s[i] == (byte) '#' && i != len1) || s[i] == (byte) '$' )
+				throw new IllegalArgumentException("Text file contains a $(or #) character!");
+		build(s, stringLen + 1);
+		calcDecendantSuffix(len1);
+	}
+
+	/**
+	 * Builds the tree of string s by Ukkonen's algorithm, giving every leaf
+	 * the right label leafEnd.
+	 */
+	private void build(byte [] s, int leafEnd) {
+		int n = s.length;
+		ArrayNodeStore store = new ArrayNodeStore(2 * n + 1);   // n leaves, fewer than n branch nodes, and the root
+		wrap(s, store.child, store.sibling, store.leftLabel, store.rightLabel, store.suffix);
+
+		nodeCount = 0;
+		store.newNode(0, 0, -1);   // the root
+		IntUkkonenBuilder builder = new IntUkkonenBuilder(store, s, leafEnd);
+		for (int i = 0; i < n; i++)
+			builder.extend(i);
+	}
+
+	/**
+	 * Makes the string and node arrays on the heap the storage of the tree.
+	 */
+	private void wrap(byte [] s, int [] childIn, int [] siblingIn, int [] leftIn, int [] rightIn, int [] suffixIn) {
+		text = ByteBuffer.wrap(s);
+		child = IntBuffer.wrap(childIn);
+		sibling = IntBuffer.wrap(siblingIn);
+		leftLabel = IntBuffer.wrap(leftIn);
+		rightLabel = IntBuffer.wrap(rightIn);
+		suffix = IntBuffer.wrap(suffixIn);
+	}
+
+	/**
+	 * Enters every child of a node in the index of children, which is
+	 * created if need be; later children are entered as they are linked.
+	 */
+	private void index(int v) {
+		if (childIndex == null) {
+			childIndex = new FlatChildIndex();
+			indexed = new BitSet();
+		}
+		indexed.set(v);
+		for (int c = getChild(v); c != NONE; c = getSibling(c))
+			childIndex.put(v, byteAt(getLeftLabel(c)) & 0xff, c);
+	}
+
+	/**
+	 * Store through which IntUkkonenBuilder builds the tree into arrays on
+	 * the heap, which the tree wraps as its storage, so that construction
+	 * writes to the arrays directly rather than through the buffers.  NONE
+	 * stands for the absence of a node.  Suffix links are held in an array
+	 * of the store's own, which is discarded with the store once the tree
+	 * is built.
+	 */
+	private class ArrayNodeStore implements IntNodeStore {
+
+		/** Node arrays, as in FlatSuffixTree. */
+		private int [] child;
+		private int [] sibling;
+		private int [] leftLabel;
+		private int [] rightLabel;
+		private int [] suffix;
+
+		/** Suffix link of each node (NONE if none has been set). */
+		private int [] link;
+
+		ArrayNodeStore(int capacity) {
+			child = new int[capacity];
+			sibling = new int[capacity];
+			leftLabel = new int[capacity];
+			rightLabel = new int[capacity];
+			suffix = new int[capacity];
+			link = new int[capacity];
+		}
+
+		public int getRoot() { return 0; }
+
+		public int newNode(int left, int right, int suffNum) {
+			int v = nodeCount++;
+			child[v] = NONE;
+			sibling[v] = NONE;
+			leftLabel[v] = left;
+			rightLabel[v] = right;
+			suffix[v] = suffNum;
+			link[v] = NONE;
+			return v;
+		}
+
+		public int findChild(int v, byte [] str, byte ch) {
+			int next;
+			if (indexed != null && indexed.get(v))
+				next = childIndex.get(v, ch & 0xff);
+			else {
+				next = child[v];
+				while (next != NONE && str[leftLabel[next]] != ch)
+					next = sibling[next];
+			}
+			return next;
+		}
+
+		public void addChild(int v, byte [] str, int c) {
+			sibling[c] = child[v];
+			child[v] = c;
+			if (indexed != null && indexed.get(v)) {
+				childIndex.put(v, str[leftLabel[c]] & 0xff, c);
+				return;
+			}
+			int count = 0;
+			for (int next = child[v]; next != NONE && count <= SuffixTreeNode.INDEX_THRESHOLD; next = sibling[next])
+				count++;
+			if (count > SuffixTreeNode.INDEX_THRESHOLD)
+				index(v);
+		}
+
+		public void replaceChild(int v, byte [] str, int old, int c) {
+			sibling[c] = sibling[old];
+			if (indexed != null && indexed.get(v))
+				childIndex.put(v, str[leftLabel[c]] & 0xff, c);
+			int prev = child[v];
+			if (prev == old) {
+				child[v] = c;
+				return;
+			}
+			while (sibling[prev] != old)
+				prev = sibling[prev];
+			sibling[prev] = c;
+		}
+
+		public int getLeftLabel(int v) { return leftLabel[v]; }
+
+		public void setLeftLabel(int v, int left) { leftLabel[v] = left; }
+
+		public int getRightLabel(int v) { return rightLabel[v]; }
+
+		public int getSuffixLink(int v) { return link[v]; }
+
+		public void setSuffixLink(int v, int w) { link[v] = w; }
+	}
+
+	/**
+	 * For each node, finds the string to which its descendant leaves belong
+	 * (or both strings), visiting the nodes in reverse preorder so that
+	 * every node is processed after all of its children.
+	 */
+	private void calcDecendantSuffix(int len1) {
+		long [] flags = new long[(2 * nodeCount + 63) >>> 6];
+		int [] order = new int[nodeCount];
+		int [] stack = new int[nodeCount];
+		int top = 0, count = 0;
+
+		stack[top++] = getRoot();
+		while (top > 0) {
+			int v = stack[--top];
+			order[count++] = v;
+			for (int c = getChild(v); c != NONE; c = getSibling(c))
+				stack[top++] = c;
+		}
+
+		for (int k = count - 1; k >= 0; k--) {
+			int v = order[k];
+			if (getChild(v) == NONE) {
+				if (getSuffix(v) < len1)
+					setFlag(flags, 2 * v);
+				else if (getSuffix(v) > len1 && getSuffix(v) <= stringLen)
+					setFlag(flags, 2 * v + 1);
+			}
+			else
+				for (int c = getChild(v); c != NONE; c = getSibling(c)) {
+					if (getFlag(flags, 2 * c))
+						setFlag(flags, 2 * v);
+					if (getFlag(flags, 2 * c + 1))
+						setFlag(flags, 2 * v + 1);
+				}
+		}
+		lcsFlags = LongBuffer.wrap(flags);
+	}
+
+	private static void setFlag(long [] flags, int bit) { flags[bit >>> 6] |= 1L << bit; }
+
+	private static boolean getFlag(long [] flags, int bit) { return (flags[bit >>> 6] & (1L << bit)) != 0; }
+
+	private boolean getFlag(int bit) { return lcsFlags != null && (lcsFlags.get(bit >>> 6) & (1L << bit)) != 0; }
+
+	/**
+	 * Given node v of suffix tree and character ch, search v, plus all
+	 * sibling nodes of v, looking for a node whose left label x satisfies
+	 * ch == s[x] (as in SuffixTree.searchList).
+	 * 
+	 * @param v a node of the suffix tree
+	 * @param ch the character to match
+	 * 
+	 * @return the matching suffix tree node (NONE if none exists)
+	 */
+	public int searchList (int v, byte ch) {
+		int next = v;
+		int len = getStringLen();
+		while (next != NONE) {
+			int left = getLeftLabel(next);
+			if (left < len && byteAt(left) == ch)
+				return next;
+			next = getSibling(next);
+		}
+		return NONE;
+	}
+
+	/**
+	 * Given node v of suffix tree and character ch, search the children of
+	 * v for a node whose left label x satisfies ch == s[x], as in
+	 * searchList(getChild(v), ch).  Uses the index of children if v has
+	 * more than SuffixTreeNode.INDEX_THRESHOLD children, rather than
+	 * scanning the list of children; a tree loaded from an index file has
+	 * no index, and always scans.
+	 * 
+	 * @param v a node of the suffix tree
+	 * @param ch the character to match
+	 * 
+	 * @return the matching suffix tree node (NONE if none exists)
+	 */
+	public int searchChild (int v, byte ch) {
+		if (indexed == null || !indexed.get(v))
+			return searchList(getChild(v), ch);
+		int next = childIndex.get(v, ch & 0xff);
+		return next != NONE && getLeftLabel(next) >= getStringLen() ? NONE : next;
+	}
+
+	/**
+	 * Gets the root node.
+	 * 
+	 * @return the root node
+	 */
+	public int getRoot() { return 0; }
+
+	/**
+	 * Gets the head of the list of children of a node.
+	 * 
+	 * @param v a node
+	 * @return the head of the list of children (NONE for a leaf)
+	 */
+	public int getChild(int v) { return child.get(v); }
+
+	/**
+	 * Gets the sibling of a node.
+	 * 
+	 * @param v a node
+	 * @return the sibling (NONE if there is none)
+	 */
+	public int getSibling(int v) { return sibling.get(v); }
+
+	/**
+	 * Gets the leftmost extent of the full edge label above a node.
+	 * 
+	 * @param v a node
+	 * @return the leftmost extent of the full edge label
+	 */
+	public int getLeftLabel(int v) { return leftLabel.get(v); }
+
+	/**
+	 * Gets the rightmost extent of the full edge label above a node.
+	 * 
+	 * @param v a node
+	 * @return the rightmost extent of the full edge label
+	 */
+	public int getRightLabel(int v) { return rightLabel.get(v); }
+
+	/**
+	 * Gets the suffix number of a node.
+	 * 
+	 * @param v a node
+	 * @return the suffix number (-1 for a branch node)
+	 */
+	public int getSuffix(int v) { return suffix.get(v); }
+
+	/**
+	 * Gets whether a node has a descendant leaf whose suffix starts in the
+	 * first string (generalised trees only).
+	 * 
+	 * @param v a node
+	 * @return the value of the flag
+	 */
+	public boolean getLeafNodeString1(int v) { return getFlag(2 * v); }
+
+	/**
+	 * Gets whether a node has a descendant leaf whose suffix starts in the
+	 * second string (generalised trees only).
+	 * 
+	 * @param v a node
+	 * @return the value of the flag
+	 */
+	public boolean getLeafNodeString2(int v) { return getFlag(2 * v + 1); }
+
+	/**
+	 * Gets the number of leaves in the subtree rooted at node v, which is
+	 * the number of occurrences in s of the path label of v.  The leaf
+	 * counts of all nodes are computed together on the first call.
+	 * 
+	 * @param v a node of the suffix tree
+	 * @return the number of leaves in the subtree rooted at v
+	 */
+	public int getLeafCount(int v) {
+		int [] counts = leafCount;
+		if (counts == null)
+			counts = calcLeafCounts();
+		return counts[v];
+	}
+
+	/**
+	 * Computes the leaf count of every node, visiting the nodes in reverse
+	 * preorder as in calcDecendantSuffix.
+	 */
+	private synchronized int [] calcLeafCounts() {
+		if (leafCount != null)
+			return leafCount;
+		int nodes = getNodeCount();
+		int [] order = new int[nodes];
+		int [] stack = new int[nodes];
+		int top = 0, count = 0;
+
+		stack[top++] = getRoot();
+		while (top > 0) {
+			int v = stack[--top];
+			order[count++] = v;
+			for (int c = getChild(v); c != NONE; c = getSibling(c))
+				stack[top++] = c;
+		}
+
+		int [] counts = new int[nodes];
+		for (int k = count - 1; k >= 0; k--) {
+			int v = order[k];
+			if (getChild(v) == NONE)
+				counts[v] = 1;
+			else
+				for (int c = getChild(v); c != NONE; c = getSibling(c))
+					counts[v] += counts[c];
+		}
+		leafCount = counts;
+		return counts;
+	}
+
+	/**
+	 * Gets the number of nodes, including the root.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() { return nodeCount; }
+
+	/**
+	 * Gets a character of the string represented by the suffix tree.
+	 * 
+	 * @param i a position in the string
+	 * @return the character at position i
+	 */
+	public byte byteAt(int i) { return text.get(i); }
+
+	/**
+	 * Gets the string represented by the suffix tree, if it is held on the
+	 * heap.  The string of a tree loaded from an index file is not copied
+	 * out of the file, and is read through byteAt instead.
+	 * 
+	 * @return the string represented by the suffix tree (null for a tree
+	 * loaded from an index file)
+	 */
+	public byte[] getString() { return text.hasArray() ? text.array() : null; }
+
+	/**
+	 * Gets a read-only view of the string represented by the suffix tree,
+	 * including termination characters.
+	 * 
+	 * @return the view of the string
+	 */
+	ByteBuffer getText() { return text.asReadOnlyBuffer(); }
+
+	/**
+	 * Gets the length of the string represented by the suffix tree.
+	 * 
+	 * @return the length of the string represented by the suffix tree
+	 */
+	public int getStringLen() { return stringLen; }
+}
@@ -0,0 +1,297 @@
+package SuffixTreePackage;
+
+import java.util.Arrays;
+
+/**
+ * Class with methods for carrying out the suffix tree applications
+ * (Tasks 1-4) on a FlatSuffixTree, using int node handles throughout.
+ * 
+ * The algorithms are those of SuffixTreeAppl; traversals use an explicit
+ * stack of handles, so that no objects are allocated per node visited.
+ * Task1Info.matchNode is always null, the match being available as a
+ * handle from searchNode instead.
+ */
+
+public class FlatSuffixTreeAppl implements RepeatIndex, CommonSubstringIndex {
+
+	/** The suffix tree */
+	private FlatSuffixTree t;
+
+	/**
+	 * Default constructor.
+	 */
+	public FlatSuffixTreeAppl () {
+		t = null;
+	}
+
+	/**
+	 * Constructor with parameter.
+	 * 
+	 * @param tree the suffix tree
+	 */
+	public FlatSuffixTreeAppl (FlatSuffixTree tree) {
+		t = tree;
+	}
+
+	/**
+	 * Search the suffix tree t representing string s for a target x, as
+	 * in SuffixTreeAppl.searchSuffixTree.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchSuffixTree(byte[] x) {
+		int [] result = searchNode(x);
+		return new Task1Info(result[0], null);
+	}
+
+	/**
+	 * Search the suffix tree t for a target x, returning both the starting
+	 * position of an occurrence (-1 if there is none) and the handle of the
+	 * highest node whose path label has x as a prefix (NONE if there is none).
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a pair {position, node}
+	 */
+	public int [] searchNode(byte[] x) {
+		int pos = 0, i, j;
+		int current = t.getRoot(), next;
+
+		while (true) {
+			// search for child of current with left label equal to x[pos]
+			next = t.searchChild(current, x[pos]);
+			if (next == FlatSuffixTree.NONE)
+				break;
+
+			// try to match as many characters of the node and the search string
+			j = t.getLeftLabel(next) + 1;
+			i = pos + 1;
+			int right = t.getRightLabel(next);
+			while (i < x.length && j <= right && x[i] == t.byteAt(j)) {
+				i++;
+				j++;
+			}
+
+			if (i >= x.length)
+				// succeeded in matching whole search word
+				return new int [] { j - x.length, next };
+			if (j > right) {
+				// succeeded in matching a whole segment, so go further down the tree
+				pos = i;
+				current = next;
+			}
+			else
+				break;
+		}
+		return new int [] { -1, FlatSuffixTree.NONE };
+	}
+
+	/**
+	 * Search suffix tree t representing string s for all occurrences of
+	 * target x, as in SuffixTreeAppl.allOccurrences.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task2Info object
+	 */
+	public Task2Info allOccurrences(byte[] x) {
+		Task2Info t2Info = new Task2Info();
+		forEachOccurrence(x, t2Info);
+		return t2Info;
+	}
+
+	/**
+	 * Passes each occurrence of target x to a visitor, as in
+	 * SuffixTreeAppl.forEachOccurrence.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor
+	 */
+	public void forEachOccurrence(byte[] x, OccurrenceVisitor v) {
+		visitOccurrences(x, v, null);
+	}
+
+	/**
+	 * Finds one page of the occurrences of target x, as in
+	 * SuffixTreeAppl.allOccurrences(byte[], long, int).
+	 * 
+	 * @param x the target string to search for
+	 * @param offset the number of occurrences to pass over
+	 * @param limit the maximum number of occurrences to return
+	 * 
+	 * @return the starting positions of the occurrences in the page
+	 */
+	public long[] allOccurrences(byte[] x, long offset, int limit) {
+		OccurrencePage page = new OccurrencePage(offset, limit);
+		if (!page.isFull())   // a page of no occurrences needs no search
+			visitOccurrences(x, page, page);
+		return page.toArray();
+	}
+
+	/**
+	 * Traverses the subtree of the node at which x is matched, passing the
+	 * suffix of each leaf to v and skipping whole subtrees before the page.
+	 */
+	private void visitOccurrences(byte[] x, OccurrenceVisitor visitor, OccurrencePage page) {
+		int match = searchNode(x)[1];
+
+		// If nothing was found, end the search
+		if (match == FlatSuffixTree.NONE)
+			return;
+
+		// Traverse the sub-tree of the matched node, visiting the suffix of each leaf
+		int [] stack = new int[16];
+		int top = 0;
+		stack[top++] = match;
+		while (top > 0) {
+			int v = stack[--top];
+			if (page != null && page.getSkip() > 0 && t.getLeafCount(v) <= page.getSkip())
+				page.skipped(t.getLeafCount(v));
+			else if (t.getChild(v) == FlatSuffixTree.NONE) {
+				if (!visitor.visit(t.getSuffix(v)))
+					return;
+			}
+			else
+				for (int c = t.getChild(v); c != FlatSuffixTree.NONE; c = t.getSibling(c)) {
+					if (top == stack.length)
+						stack = Arrays.copyOf(stack, 2 * top);
+					stack[top++] = c;
+				}
+		}
+	}
+
+	/**
+	 * Counts the occurrences of target x, as in SuffixTreeAppl.countOccurrences.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return the number of occurrences of x
+	 */
+	public long countOccurrences(byte[] x) {
+		int match = searchNode(x)[1];
+		return match == FlatSuffixTree.NONE ? 0 : t.getLeafCount(match);
+	}
+
+	/**
+	 * Searches for a target x and counts its occurrences, as in
+	 * SuffixTreeAppl.searchAndCount.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchAndCount(byte[] x) {
+		int [] result = searchNode(x);
+		Task1Info t1Info = new Task1Info(result[0], null);
+		if (result[1] != FlatSuffixTree.NONE)
+			t1Info.setCount(t.getLeafCount(result[1]));
+		return t1Info;
+	}
+
+	/**
+	 * Traverses suffix tree t representing string s to find two embeddings
+	 * of a longest repeated substring of s, as in SuffixTreeAppl.traverseForLrs.
+	 * 
+	 * @return a Task3Info object
+	 */
+	public Task3Info traverseForLrs () {
+		Task3Info t3Info = new Task3Info();
+		int [] stack = new int[16];
+		int top = 0;
+		stack[top++] = t.getRoot();
+
+		// Traverse the whole tree
+		while (top > 0) {
+			int v = stack[--top];
+			for (int c = t.getChild(v); c != FlatSuffixTree.NONE; c = t.getSibling(c)) {
+				int sibling = t.getSibling(c);
+				if (t.getChild(c) == FlatSuffixTree.NONE) {
+					// a leaf with a sibling: its parent's path label is repeated
+					int prefix_len = t.getLeftLabel(c) - t.getSuffix(c);
+					if (sibling != FlatSuffixTree.NONE && prefix_len > t3Info.getLen()) {
+						t3Info.setLen(prefix_len);
+						t3Info.setPos1(t.getSuffix(c));
+						t3Info.setPos2(firstLeaf(sibling));
+					}
+				}
+				else {
+					if (top == stack.length)
+						stack = Arrays.copyOf(stack, 2 * top);
+					stack[top++] = c;
+				}
+			}
+		}
+		return t3Info;
+	}
+
+	/**
+	 * Traverse generalised suffix tree t representing strings s1 (of length
+	 * s1Length) and s2 to find embeddings of a longest common substring,
+	 * as in SuffixTreeAppl.traverseForLcs.
+	 * 
+	 * @param s1Length the length of s1
+	 * 
+	 * @return a Task4Info object
+	 */
+	public Task4Info traverseForLcs (int s1Length) {
+		Task4Info t4Result = new Task4Info();
+		int best = FlatSuffixTree.NONE;
+
+		// depth-first search for the deepest node present in both strings
+		int [] stack = new int[32];
+		int top = 0;
+		stack[top++] = t.getRoot();
+		stack[top++] = 0;
+		while (top > 0) {
+			int currLen = stack[--top];
+			int v = stack[--top];
+			if (!t.getLeafNodeString1(v) || !t.getLeafNodeString2(v))
+				continue;
+			if (currLen > t4Result.getLen()) {
+				t4Result.setLen(currLen);
+				best = v;
+			}
+			for (int c = t.getChild(v); c != FlatSuffixTree.NONE; c = t.getSibling(c)) {
+				if (top + 2 > stack.length)
+					stack = Arrays.copyOf(stack, 2 * stack.length);
+				stack[top++] = c;
+				stack[top++] = currLen + t.getRightLabel(c) - t.getLeftLabel(c) + 1;
+			}
+		}
+
+		if (best != FlatSuffixTree.NONE) {
+			// find a leaf of each string below the deepest common node
+			t4Result.setPos1(-1);
+			t4Result.setPos2(-1);
+			stack[0] = best;
+			top = 1;
+			while (top > 0 && (t4Result.getPos1() < 0 || t4Result.getPos2() < 0)) {
+				int v = stack[--top];
+				int suffix = t.getSuffix(v);
+				if (t.getChild(v) == FlatSuffixTree.NONE) {
+					if (suffix < s1Length && t4Result.getPos1() < 0)
+						t4Result.setPos1(suffix);
+					else if (suffix > s1Length && suffix <= t.getStringLen() && t4Result.getPos2() < 0)
+						t4Result.setPos2(suffix - (s1Length + 1));
+				}
+				for (int c = t.getChild(v); c != FlatSuffixTree.NONE; c = t.getSibling(c)) {
+					if (top == stack.length)
+						stack = Arrays.copyOf(stack, 2 * top);
+					stack[top++] = c;
+				}
+			}
+		}
+		return t4Result;
+	}
+
+	/**
+	 * Finds the suffix number of some leaf in the subtree rooted at node v.
+	 */
+	private int firstLeaf(int v) {
+		while (t.getChild(v) != FlatSuffixTree.NONE)
+			v = t.getChild(v);
+		return t.getSuffix(v);
+	}
+}
@@ -0,0 +1,261 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Class for saving suffix trees to index files and loading them again.
+ * 
+ * An index file holds a FlatSuffixTree in the following format, with all
+ * numbers little-endian and every section padded to a multiple of 8 bytes:
+ * - a 32-byte header: the magic number "STIX", the format version, flags
+ *   (1 if the Longest Common Substring flags are present), stringLen, the
+ *   length of the string including termination characters, the number of
+ *   nodes, the CRC-32C checksum of the first stringLen bytes of the string
+ *   (for the suffix tree of one string, the contents of its text file),
+ *   and a reserved int
+ * - the string, including termination characters
+ * - the child, sibling, leftLabel, rightLabel and suffix arrays, one int
+ *   per node each
+ * - the Longest Common Substring flags, if present, two bits per node
+ * 
+ * Loading an index maps each section of the file into memory and returns
+ * a tree that reads its nodes through the mappings.  Nothing is read until
+ * it is used, when the operating system pages it in, so an index of any
+ * size is reopened in milliseconds.  Whether an index is still that of
+ * its text file is decided by the checksum (see isCurrent), since the
+ * modification time and length of a file may be unchanged by an edit.
+ */
+
+public class IndexFile {
+
+	/** Version of the index file format written by this class. */
+	public static final int VERSION = 2;
+
+	/** The bytes "STIX" read as a little-endian int. */
+	private static final int MAGIC = 0x58495453;
+
+	/** Length of the header in bytes. */
+	private static final int HEADER_SIZE = 32;
+
+	/** Flag indicating that the Longest Common Substring flags are present. */
+	private static final int HAS_LCS_FLAGS = 1;
+
+	/**
+	 * Saves a suffix tree to an index file.  The file is written under a
+	 * temporary name and then renamed, so that it is never seen half-written.
+	 * 
+	 * @param t the suffix tree
+	 * @param fileName the name of the index file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(FlatSuffixTree t, String fileName) throws IOException {
+		Path path = Paths.get(fileName);
+		Path temp = Paths.get(fileName + ".tmp");
+		int nodes = t.getNodeCount();
+		ByteBuffer s = t.getText();
+		int len = s.remaining();
+		boolean hasFlags = t.getLeafNodeString1(t.getRoot()) || t.getLeafNodeString2(t.getRoot());
+
+		FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(hasFlags ? HAS_LCS_FLAGS : 0);
+			buffer.putInt(t.getStringLen()).putInt(len).putInt(nodes);
+			buffer.putInt(checksum(s.duplicate().limit(t.getStringLen()))).putInt(0);
+
+			flush(channel, buffer);
+			while (s.hasRemaining())
+				channel.write(s);
+			pad(channel, buffer, len);
+
+			for (int a = 0; a < 5; a++) {
+				for (int v = 0; v < nodes; v++) {
+					if (buffer.remaining() < 4)
+						flush(channel, buffer);
+					buffer.putInt(a == 0 ? t.getChild(v) : a == 1 ? t.getSibling(v)
+							: a == 2 ? t.getLeftLabel(v) : a == 3 ? t.getRightLabel(v) : t.getSuffix(v));
+				}
+				pad(channel, buffer, 4L * nodes);
+			}
+
+			if (hasFlags)
+				for (int w = 0; w < flagWords(nodes); w++) {
+					long word = 0;
+					for (int b = 0; b < 64; b++) {
+						int bit = 64 * w + b;
+						if (bit < 2 * nodes && (bit % 2 == 0 ? t.getLeafNodeString1(bit / 2)
+								: t.getLeafNodeString2(bit / 2)))
+							word |= 1L << b;
+					}
+					if (buffer.remaining() < 8)
+						flush(channel, buffer);
+					buffer.putLong(word);
+				}
+			flush(channel, buffer);
+			channel.force(true);
+		}
+		finally {
+			channel.close();
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Saves a suffix tree built from SuffixTreeNode objects to an index file.
+	 * 
+	 * @param t the suffix tree
+	 * @param fileName the name of the index file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(SuffixTree t, String fileName) throws IOException {
+		save(new FlatSuffixTree(t), fileName);
+	}
+
+	/**
+	 * Checks whether an index file holds the suffix tree of the current
+	 * contents of a text file: that it is an index file of this version,
+	 * of a string of the length of the text file, whose checksum is that of
+	 * the text file.  The text file is read as a stream to compute its
+	 * checksum, and is not held in memory.
+	 * 
+	 * @param fileName the name of the index file
+	 * @param textFileName the name of the text file
+	 * @return true if the index file is that of the text file, false if
+	 * it is missing, of another version, or of another string
+	 * @throws IOException if the text file cannot be read
+	 */
+	public static boolean isCurrent(String fileName, String textFileName) throws IOException {
+		Path path = Paths.get(fileName);
+		Path textPath = Paths.get(textFileName);
+		long textSize = Files.size(textPath);
+		if (!Files.isRegularFile(path) || Files.size(path) < HEADER_SIZE)
+			return false;
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+		}
+		finally {
+			channel.close();
+		}
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+				|| (header.getInt(8) & HAS_LCS_FLAGS) != 0 || header.getInt(12) != textSize)
+			return false;
+
+		CRC32C crc = new CRC32C();
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		channel = FileChannel.open(textPath, StandardOpenOption.READ);
+		try {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+		finally {
+			channel.close();
+		}
+		return (int) crc.getValue() == header.getInt(24);
+	}
+
+	/** Computes the CRC-32C checksum of the remaining bytes of a buffer. */
+	private static int checksum(ByteBuffer buffer) {
+		CRC32C crc = new CRC32C();
+		crc.update(buffer);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Loads a suffix tree from an index file by memory-mapping it.
+	 * 
+	 * @param fileName the name of the index file
+	 * @return the suffix tree
+	 * @throws IOException if the file cannot be read or is not a valid index file
+	 */
+	public static FlatSuffixTree load(String fileName) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER_SIZE)
+				throw new IOException(fileName + " is not an index file");
+			ByteBuffer header = map(channel, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC)
+				throw new IOException(fileName + " is not an index file");
+			if (header.getInt(4) != VERSION)
+				throw new IOException(fileName + " has unsupported index file version " + header.getInt(4));
+			boolean hasFlags = (header.getInt(8) & HAS_LCS_FLAGS) != 0;
+			int stringLen = header.getInt(12);
+			int len = header.getInt(16);
+			int nodes = header.getInt(20);
+
+			long offset = HEADER_SIZE;
+			long expected = offset + padded(len) + 5 * padded(4L * nodes)
+					+ (hasFlags ? 8L * flagWords(nodes) : 0);
+			if (len < 0 || nodes < 1 || size != expected)
+				throw new IOException(fileName + " is truncated or corrupt");
+
+			ByteBuffer text = map(channel, offset, len);
+			offset += padded(len);
+			IntBuffer [] arrays = new IntBuffer[5];
+			for (int a = 0; a < 5; a++) {
+				arrays[a] = map(channel, offset, 4L * nodes).asIntBuffer();
+				offset += padded(4L * nodes);
+			}
+			LongBuffer flags = null;
+			if (hasFlags)
+				flags = map(channel, offset, 8L * flagWords(nodes)).asLongBuffer();
+
+			return new FlatSuffixTree(text, stringLen, nodes, arrays, flags);
+		}
+		finally {
+			// the mappings remain valid after the channel is closed
+			channel.close();
+		}
+	}
+
+	/** Maps a read-only section of the file, in little-endian order. */
+	private static ByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("index file section is too large to be mapped");
+		MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		return map.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/** Number of longs holding the LCS flags of the given number of nodes. */
+	private static int flagWords(int nodes) {
+		return (int) ((2L * nodes + 63) >>> 6);
+	}
+
+	/** Rounds a section length up to a multiple of 8 bytes. */
+	private static long padded(long len) {
+		return (len + 7) & ~7L;
+	}
+
+	/** Writes zeros after a section of the given length, up to a multiple of 8 bytes. */
+	private static void pad(FileChannel channel, ByteBuffer buffer, long len) throws IOException {
+		for (long i = len; i < padded(len); i++) {
+			if (!buffer.hasRemaining())
+				flush(channel, buffer);
+			buffer.put((byte) 0);
+		}
+	}
+
+	/** Writes the contents of the buffer to the channel and clears the buffer. */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+}
@@ -0,0 +1,87 @@
+package SuffixTreePackage;
+
+import java.util.Arrays;
+
+/**
+ * Class for a growable list of ints held in an array, used in place of a
+ * list of Integer objects so that no object is allocated per entry.
+ */
+
+public class IntList {
+
+	/** The entries, at positions 0 to size-1. */
+	private int [] data;
+
+	/** The number of entries. */
+	private int size;
+
+	/**
+	 * Default constructor.
+	 */
+	public IntList () {
+		this(16);
+	}
+
+	/**
+	 * Constructor with parameter.
+	 *
+	 * @param capacity the number of entries to make room for initially
+	 */
+	public IntList (int capacity) {
+		data = new int[Math.max(capacity, 1)];
+		size = 0;
+	}
+
+	/**
+	 * Adds an entry to the end of the list, doubling the array if it is full.
+	 *
+	 * @param x the entry to add
+	 */
+	public void add(int x) {
+		if (size == data.length)
+			data = Arrays.copyOf(data, Math.max(2 * size, size + 1));
+		data[size++] = x;
+	}
+
+	/**
+	 * Gets an entry.
+	 *
+	 * @param i the index of the entry (counting from 0)
+	 * @return the entry
+	 */
+	public int get(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+		return data[i];
+	}
+
+	/**
+	 * Removes the last entry, so that the list may be used as a stack.
+	 *
+	 * @return the entry removed
+	 */
+	public int removeLast() {
+		if (size == 0)
+			throw new IndexOutOfBoundsException("list is empty");
+		return data[--size];
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() { return size; }
+
+	/**
+	 * Removes all entries, keeping the array for reuse.
+	 */
+	public void clear() { size = 0; }
+
+	/**
+	 * Copies the entries to an array of exactly the right length.
+	 *
+	 * @return the entries
+	 */
+	public int[] toArray() { return Arrays.copyOf(data, size); }
+}
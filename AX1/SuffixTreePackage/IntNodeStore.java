@@ -0,0 +1,104 @@
+package SuffixTreePackage;
+
+/**
+ * Interface through which IntUkkonenBuilder builds a suffix tree whose
+ * nodes are identified by int handles, as in FlatSuffixTree; it has the
+ * methods of NodeStore, with handles in place of node objects so that no
+ * handle is ever boxed.
+ * 
+ * A negative handle stands for the absence of a node.  The strings built
+ * in this way have real termination characters only, so the methods that
+ * compare characters are not given any terminators.
+ */
+
+interface IntNodeStore {
+
+	/**
+	 * Gets the root node.
+	 *
+	 * @return the handle of the root node
+	 */
+	int getRoot();
+
+	/**
+	 * Creates a node with no children.
+	 *
+	 * @param left the leftmost extent of the full edge label
+	 * @param right the rightmost extent of the full edge label
+	 * @param suffix the suffix number (-1 for a branch node)
+	 * @return the handle of the new node
+	 */
+	int newNode(int left, int right, int suffix);
+
+	/**
+	 * Finds the child of a node whose full edge label [x..y] satisfies
+	 * s[x] == ch.
+	 *
+	 * @param v a node
+	 * @param s the string represented by the suffix tree
+	 * @param ch the character to match
+	 * @return the matching child (negative if none exists)
+	 */
+	int findChild(int v, byte [] s, byte ch);
+
+	/**
+	 * Adds a node to the head of the list of children of a node.
+	 * - assumes that no existing child's edge label starts with the same character
+	 *
+	 * @param v a node
+	 * @param s the string represented by the suffix tree
+	 * @param c the new child, which has no sibling
+	 */
+	void addChild(int v, byte [] s, int c);
+
+	/**
+	 * Replaces a child of a node by another node whose edge label starts
+	 * with the same character, as in NodeStore.replaceChild.
+	 *
+	 * @param v a node
+	 * @param s the string represented by the suffix tree
+	 * @param oldChild the child to be replaced
+	 * @param newChild the replacement, which has no sibling
+	 */
+	void replaceChild(int v, byte [] s, int oldChild, int newChild);
+
+	/**
+	 * Gets the leftmost extent of the full edge label above a node.
+	 *
+	 * @param v a node
+	 * @return the leftmost extent of the full edge label
+	 */
+	int getLeftLabel(int v);
+
+	/**
+	 * Sets the leftmost extent of the full edge label above a node.
+	 *
+	 * @param v a node
+	 * @param left the new leftmost extent of the full edge label
+	 */
+	void setLeftLabel(int v, int left);
+
+	/**
+	 * Gets the rightmost extent of the full edge label above a node.
+	 *
+	 * @param v a node
+	 * @return the rightmost extent of the full edge label
+	 */
+	int getRightLabel(int v);
+
+	/**
+	 * Gets the suffix link of a node.
+	 *
+	 * @param v a node
+	 * @return the suffix link (negative if none has been set)
+	 */
+	int getSuffixLink(int v);
+
+	/**
+	 * Sets the suffix link of a node.
+	 *
+	 * @param v a node
+	 * @param w the new suffix link
+	 */
+	void setSuffixLink(int v, int w);
+}
@@ -0,0 +1,128 @@
+package SuffixTreePackage;
+
+/**
+ * Class implementing Ukkonen's algorithm as in UkkonenBuilder, for trees
+ * whose nodes are int handles given out by an IntNodeStore (see
+ * FlatSuffixTree).  Building such a tree through the generic UkkonenBuilder
+ * would box a handle on every creation or lookup of a node; here handles
+ * stay primitive throughout.  The steps of extend() are those of
+ * UkkonenBuilder.extend(), and the two must be changed together.
+ * 
+ * The strings built in this way have real termination characters only
+ * and are held in one array, so there are no virtual terminators and no
+ * setString.
+ */
+
+class IntUkkonenBuilder {
+
+	/** Store holding the nodes of the suffix tree being built. */
+	private IntNodeStore store;
+
+	/** Root node of the suffix tree being built. */
+	private int root;
+
+	/** String (byte array) corresponding to the suffix tree. */
+	private byte [] s;
+
+	/** Right label given to every leaf node created. */
+	private int leafEnd;
+
+	/** The active point: node, position in s of first character of active edge, and length. */
+	private int activeNode;
+	private int activeEdge;
+	private int activeLength;
+
+	/** Number of suffixes still to be inserted explicitly. */
+	private int remainder;
+
+	/**
+	 * Instantiates a new builder.
+	 *
+	 * @param nodes the store holding an empty suffix tree
+	 * @param sInput the string whose suffix tree is to be built
+	 * @param end the right label to be given to leaf nodes
+	 */
+	IntUkkonenBuilder(IntNodeStore nodes, byte [] sInput, int end) {
+		store = nodes;
+		root = store.getRoot();
+		s = sInput;
+		leafEnd = end;
+		activeNode = root;
+		activeEdge = 0;
+		activeLength = 0;
+		remainder = 0;
+	}
+
+	/**
+	 * Extends the tree with the character at position i of s.
+	 * - assumes that positions 0..i-1 have already been added
+	 *
+	 * @param i the position of the character to add
+	 */
+	void extend(int i) {
+		int lastNewNode = -1;
+		int next;
+		remainder++;
+
+		while (remainder > 0) {
+			if (activeLength == 0)
+				activeEdge = i;
+
+			next = store.findChild(activeNode, s, s[activeEdge]);
+
+			if (next < 0) {
+				// no edge starts with the active character, so add a new leaf here
+				store.addChild(activeNode, s, store.newNode(i, leafEnd, i - remainder + 1));
+				if (lastNewNode >= 0) {
+					store.setSuffixLink(lastNewNode, activeNode);
+					lastNewNode = -1;
+				}
+			}
+			else {
+				int left = store.getLeftLabel(next);
+				int len = Math.min(store.getRightLabel(next), i) - left + 1;
+				if (activeLength >= len) {
+					// walk down the edge (skip/count trick) and try again from next
+					activeEdge += len;
+					activeLength -= len;
+					activeNode = next;
+					Stats.increment(Stats.Counter.EDGES_SKIPPED);
+					continue;
+				}
+
+				if (s[left + activeLength] == s[i]) {
+					// s[i] is already present below the active point, so this phase ends
+					if (lastNewNode >= 0 && activeNode != root) {
+						store.setSuffixLink(lastNewNode, activeNode);
+						lastNewNode = -1;
+					}
+					activeLength++;
+					break;
+				}
+
+				// split the edge above next at the active point, as in UkkonenBuilder
+				int split = store.newNode(left, left + activeLength - 1, -1);
+				store.setSuffixLink(split, root);
+				store.replaceChild(activeNode, s, next, split);
+				store.setLeftLabel(next, left + activeLength);
+				store.addChild(split, s, store.newNode(i, leafEnd, i - remainder + 1));
+				store.addChild(split, s, next);
+				Stats.increment(Stats.Counter.SPLITS);
+
+				if (lastNewNode >= 0)
+					store.setSuffixLink(lastNewNode, split);
+				lastNewNode = split;
+			}
+
+			remainder--;
+			if (activeNode == root && activeLength > 0) {
+				activeLength--;
+				activeEdge = i - remainder + 1;
+			}
+			else if (activeNode != root) {
+				activeNode = store.getSuffixLink(activeNode);
+				Stats.increment(Stats.Counter.SUFFIX_LINKS_FOLLOWED);
+			}
+		}
+	}
+}
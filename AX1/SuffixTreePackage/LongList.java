@@ -0,0 +1,76 @@
+package SuffixTreePackage;
+
+import java.util.Arrays;
+
+/**
+ * Class for a growable list of longs held in an array, used in place of a
+ * list of Long objects so that no object is allocated per entry.
+ */
+
+public class LongList {
+
+	/** The entries, at positions 0 to size-1. */
+	private long [] data;
+
+	/** The number of entries. */
+	private int size;
+
+	/**
+	 * Default constructor.
+	 */
+	public LongList () {
+		this(16);
+	}
+
+	/**
+	 * Constructor with parameter.
+	 *
+	 * @param capacity the number of entries to make room for initially
+	 */
+	public LongList (int capacity) {
+		data = new long[Math.max(capacity, 1)];
+		size = 0;
+	}
+
+	/**
+	 * Adds an entry to the end of the list, doubling the array if it is full.
+	 *
+	 * @param x the entry to add
+	 */
+	public void add(long x) {
+		if (size == data.length)
+			data = Arrays.copyOf(data, Math.max(2 * size, size + 1));
+		data[size++] = x;
+	}
+
+	/**
+	 * Gets an entry.
+	 *
+	 * @param i the index of the entry (counting from 0)
+	 * @return the entry
+	 */
+	public long get(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+		return data[i];
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() { return size; }
+
+	/**
+	 * Removes all entries, keeping the array for reuse.
+	 */
+	public void clear() { size = 0; }
+
+	/**
+	 * Copies the entries to an array of exactly the right length.
+	 *
+	 * @return the entries
+	 */
+	public long[] toArray() { return Arrays.copyOf(data, size); }
+}
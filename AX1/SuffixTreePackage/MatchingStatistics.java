@@ -0,0 +1,171 @@
+package SuffixTreePackage;
+
+/**
+ * Class for computing the matching statistics of a stream of characters
+ * against the string s represented by a suffix tree: after each character
+ * of the stream is added, the length of the longest suffix of the stream
+ * so far that is a substring of s, and a position in s where it occurs.
+ * 
+ * The current match is held as a point in the tree: a node, and the
+ * number of characters matched along the edge to one of its children.
+ * When the next character cannot be matched, the first character of the
+ * match is dropped by following the suffix link of the node and
+ * rescanning the rest of the match, comparing only the first character of
+ * each edge (as in Ukkonen's algorithm).  For a tree built by Ukkonen's
+ * algorithm the whole stream is therefore processed in linear time; in a
+ * tree without suffix links the rest of the match is rescanned from the
+ * root instead.
+ * 
+ * Only the suffix tree of s is held in memory, whatever the length of the
+ * stream.
+ */
+
+public class MatchingStatistics {
+
+	/** The suffix tree */
+	private SuffixTree t;
+
+	/** String (byte array) corresponding to the suffix tree. */
+	private byte [] s;
+
+	/** The node below which the current match ends, and the length of its path label. */
+	private SuffixTreeNode node;
+	private int nodeDepth;
+
+	/** The child of node along whose edge the match continues, and the number of characters matched on it. */
+	private SuffixTreeNode edge;
+	private int edgeLen;
+
+	/** The length of the current match. */
+	private int len;
+
+	/**
+	 * Instantiates a new object for matching a stream against a suffix tree.
+	 * 
+	 * @param tree the suffix tree of the string s
+	 */
+	public MatchingStatistics (SuffixTree tree) {
+		t = tree;
+		s = tree.getString();
+		reset();
+	}
+
+	/**
+	 * Forgets the characters added so far, so that a new stream may be matched.
+	 */
+	public void reset() {
+		node = t.getRoot();
+		nodeDepth = 0;
+		edge = null;
+		edgeLen = 0;
+		len = 0;
+	}
+
+	/**
+	 * Adds the next character of the stream.
+	 * 
+	 * @param c the character to add
+	 * 
+	 * @return the length of the longest suffix of the stream that occurs in s
+	 */
+	public int add(byte c) {
+		while (!extend(c)) {
+			if (len == 0)
+				return 0;
+			shorten();
+		}
+		len++;
+		return len;
+	}
+
+	/**
+	 * Gets the length of the longest suffix of the stream that occurs in s.
+	 * 
+	 * @return the length of the current match
+	 */
+	public int getLength() { return len; }
+
+	/**
+	 * Gets the starting position in s of an occurrence of the longest suffix
+	 * of the stream that occurs in s.
+	 * 
+	 * @return the starting position (counting from 0), or -1 if the current match is empty
+	 */
+	public int getPosition() {
+		if (len == 0)
+			return -1;
+		return matchEnd() - len + 1;
+	}
+
+	/**
+	 * Moves the current match one character further down the tree, if s
+	 * continues with c there.
+	 */
+	private boolean extend(byte c) {
+		if (edgeLen == 0) {
+			SuffixTreeNode child = t.searchChild(node, c);
+			if (child == null)
+				return false;
+			edge = child;
+		}
+		else {
+			int p = edge.getLeftLabel() + edgeLen;
+			if (s[p] != c || t.isTerminator(p))
+				return false;
+		}
+
+		edgeLen++;
+		if (edgeLen == edge.getRightLabel() - edge.getLeftLabel() + 1) {
+			// the whole edge has been matched, so move to the child
+			node = edge;
+			nodeDepth += edgeLen;
+			edgeLen = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * Drops the first character of the current match (which must not be empty).
+	 */
+	private void shorten() {
+		int end = matchEnd();
+		int start = end - len + 2;  // the first character kept
+		len--;
+
+		SuffixTreeNode link = node.getSuffixLink();
+		if (node != t.getRoot() && link != null) {
+			node = link;
+			nodeDepth--;
+		}
+		else {
+			node = t.getRoot();
+			nodeDepth = 0;
+		}
+
+		// rescan s[start..end] below node, whose path label covers the first nodeDepth characters
+		start += nodeDepth;
+		edgeLen = 0;
+		while (start <= end) {
+			SuffixTreeNode child = t.searchChild(node, s[start]);
+			int edgeLength = child.getRightLabel() - child.getLeftLabel() + 1;
+			if (end - start + 1 < edgeLength) {
+				edge = child;
+				edgeLen = end - start + 1;
+				return;
+			}
+			node = child;
+			nodeDepth += edgeLength;
+			start += edgeLength;
+		}
+	}
+
+	/**
+	 * Gets the position in s of the last character of an occurrence of the
+	 * current match (which must not be empty).
+	 */
+	private int matchEnd() {
+		if (edgeLen > 0)
+			return edge.getLeftLabel() + edgeLen - 1;
+		return node.getRightLabel();
+	}
+}
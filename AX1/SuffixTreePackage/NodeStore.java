@@ -0,0 +1,120 @@
+package SuffixTreePackage;
+
+import java.util.BitSet;
+
+/**
+ * Interface through which UkkonenBuilder builds a suffix tree of
+ * SuffixTreeNode objects (see SuffixTreeNodeStore).  Trees held in
+ * parallel arrays are built through an IntNodeStore instead (see
+ * IntUkkonenBuilder), so that their int handles are not boxed.
+ * 
+ * Nodes are identified by objects of type N, null standing for the
+ * absence of a node.  The builder
+ * compares a node by identity only with the root, so a store must always
+ * give out the same object for the root.  Each node has a list of
+ * children, with an index by the first character of their edge labels if
+ * the store keeps one, a pair of indices into the string giving the full
+ * edge label above it, a suffix number (-1 for branch nodes) and a suffix
+ * link.
+ * 
+ * Methods that compare characters are given the string and the positions
+ * of any virtual terminators in it, which are distinct from every
+ * character and from each other (see UkkonenBuilder).
+ */
+
+interface NodeStore<N> {
+
+	/**
+	 * Gets the root node.
+	 * 
+	 * @return the root node
+	 */
+	N getRoot();
+
+	/**
+	 * Creates a node with no children.
+	 * 
+	 * @param left the leftmost extent of the full edge label
+	 * @param right the rightmost extent of the full edge label
+	 * @param suffix the suffix number (-1 for a branch node)
+	 * @return the new node
+	 */
+	N newNode(int left, int right, int suffix);
+
+	/**
+	 * Finds the child of a node whose full edge label [x..y] satisfies
+	 * s[x] == ch, passing over children whose edge labels start at a
+	 * terminator.
+	 * 
+	 * @param v a node
+	 * @param s the string represented by the suffix tree
+	 * @param terminators the positions of the terminators in s (null if none are virtual)
+	 * @param ch the character to match
+	 * @return the matching child (null if none exists)
+	 */
+	N findChild(N v, byte [] s, BitSet terminators, byte ch);
+
+	/**
+	 * Adds a node to the head of the list of children of a node.
+	 * - assumes that no existing child's edge label starts with the same character
+	 * 
+	 * @param v a node
+	 * @param s the string represented by the suffix tree
+	 * @param terminators the positions of the terminators in s (null if none are virtual)
+	 * @param c the new child, which has no sibling
+	 */
+	void addChild(N v, byte [] s, BitSet terminators, N c);
+
+	/**
+	 * Replaces a child of a node by another node whose edge label starts
+	 * with the same character, which takes the old child's place in the
+	 * list of children.
+	 * - assumes that oldChild's edge label still starts with that character
+	 * 
+	 * @param v a node
+	 * @param s the string represented by the suffix tree
+	 * @param oldChild the child to be replaced
+	 * @param newChild the replacement, which has no sibling
+	 */
+	void replaceChild(N v, byte [] s, N oldChild, N newChild);
+
+	/**
+	 * Gets the leftmost extent of the full edge label above a node.
+	 * 
+	 * @param v a node
+	 * @return the leftmost extent of the full edge label
+	 */
+	int getLeftLabel(N v);
+
+	/**
+	 * Sets the leftmost extent of the full edge label above a node.
+	 * 
+	 * @param v a node
+	 * @param left the new leftmost extent of the full edge label
+	 */
+	void setLeftLabel(N v, int left);
+
+	/**
+	 * Gets the rightmost extent of the full edge label above a node.
+	 * 
+	 * @param v a node
+	 * @return the rightmost extent of the full edge label
+	 */
+	int getRightLabel(N v);
+
+	/**
+	 * Gets the suffix link of a node.
+	 * 
+	 * @param v a node
+	 * @return the suffix link (null if none has been set)
+	 */
+	N getSuffixLink(N v);
+
+	/**
+	 * Sets the suffix link of a node.
+	 * 
+	 * @param v a node
+	 * @param w the new suffix link
+	 */
+	void setSuffixLink(N v, N w);
+}
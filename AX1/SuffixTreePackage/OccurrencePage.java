@@ -0,0 +1,69 @@
+package SuffixTreePackage;
+
+/**
+ * Visitor that collects one page of occurrences: it passes over the first
+ * offset occurrences, keeps the next limit, and then ends the search.
+ */
+
+class OccurrencePage implements OccurrenceVisitor {
+
+	/** Number of occurrences still to be passed over. */
+	private long skip;
+
+	/** Maximum number of occurrences to keep. */
+	private int limit;
+
+	/** The occurrences kept. */
+	private LongList positions;
+
+	/**
+	 * Constructor with parameters.
+	 * 
+	 * @param offset the number of occurrences to pass over
+	 * @param limitIn the maximum number of occurrences to keep
+	 */
+	OccurrencePage (long offset, int limitIn) {
+		if (offset < 0 || limitIn < 0)
+			throw new IllegalArgumentException("offset and limit must not be negative");
+		skip = offset;
+		limit = limitIn;
+		positions = new LongList(Math.min(limit, 1024));
+	}
+
+	/**
+	 * Gets the number of occurrences still to be passed over; a search may
+	 * pass over whole subtrees itself and report them with skipped.
+	 * 
+	 * @return the number of occurrences still to be passed over
+	 */
+	long getSkip() { return skip; }
+
+	/**
+	 * Records that a search has passed over some occurrences itself.
+	 * 
+	 * @param n the number of occurrences passed over
+	 */
+	void skipped(long n) { skip -= n; }
+
+	/**
+	 * Is the page full?
+	 * 
+	 * @return true if limit occurrences have been kept
+	 */
+	boolean isFull() { return positions.size() >= limit; }
+
+	public boolean visit(long pos) {
+		if (skip > 0)
+			skip--;
+		else if (positions.size() < limit)
+			positions.add(pos);
+		return positions.size() < limit;
+	}
+
+	/**
+	 * Gets the occurrences kept.
+	 * 
+	 * @return the occurrences kept
+	 */
+	long[] toArray() { return positions.toArray(); }
+}
@@ -0,0 +1,18 @@
+package SuffixTreePackage;
+
+/**
+ * Interface for receiving the occurrences of a target one at a time from
+ * TextIndex.forEachOccurrence, without their being stored.
+ */
+
+public interface OccurrenceVisitor {
+
+	/**
+	 * Receives the starting position of an occurrence.
+	 *
+	 * @param pos the starting position (counting from 0)
+	 *
+	 * @return true to receive further occurrences, false to end the search
+	 */
+	public boolean visit(long pos);
+}
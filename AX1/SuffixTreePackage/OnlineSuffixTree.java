@@ -0,0 +1,203 @@
+package SuffixTreePackage;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Class for a suffix tree of a string that grows at its end, such as a
+ * log file being written, which is extended by Ukkonen's algorithm as
+ * each chunk is appended rather than being rebuilt.
+ * 
+ * No termination character is added, so the tree is the implicit suffix
+ * tree of the string so far: leaves are open, with right label
+ * Integer.MAX_VALUE read as the last position of the string, and the
+ * shortest suffixes (the last UkkonenBuilder.getRemainder() of them) may
+ * end part way down an edge rather than at a leaf.  Searches find those
+ * suffixes by comparing them with the target directly.
+ * 
+ * Appending n characters takes amortised O(n) time.  Searches must not be
+ * made while a chunk is being appended.
+ */
+
+public class OnlineSuffixTree {
+
+	/** Right label of an open leaf, whose edge label runs to the end of the string. */
+	static final int OPEN = Integer.MAX_VALUE;
+
+	/** Root node of the suffix tree. */
+	private SuffixTreeNode root;
+
+	/** Array holding the string, in positions 0 to stringLen-1. */
+	private byte [] s;
+
+	/** Length of the string. */
+	private int stringLen;
+
+	/** The builder, which keeps the state of Ukkonen's algorithm between chunks. */
+	private UkkonenBuilder<SuffixTreeNode> builder;
+
+	/**
+	 * Instantiates the suffix tree of an empty string.
+	 */
+	public OnlineSuffixTree () {
+		this(1 << 12);
+	}
+
+	/**
+	 * Instantiates the suffix tree of an empty string, with room for a
+	 * given number of characters before the string's array is enlarged.
+	 * 
+	 * @param capacity the initial size of the string's array
+	 */
+	public OnlineSuffixTree (int capacity) {
+		root = new SuffixTreeNode(null, null, 0, 0, -1);
+		s = new byte[Math.max(capacity, 1)];
+		stringLen = 0;
+		builder = new UkkonenBuilder<SuffixTreeNode>(new SuffixTreeNodeStore(root), s, OPEN);
+	}
+
+	/**
+	 * Appends a chunk to the string and extends the tree to match.
+	 * 
+	 * @param chunk the characters to append
+	 */
+	public void append(byte [] chunk) {
+		append(chunk, 0, chunk.length);
+	}
+
+	/**
+	 * Appends part of an array to the string and extends the tree to match.
+	 * 
+	 * @param chunk the array holding the characters to append
+	 * @param off the position in chunk of the first character to append
+	 * @param len the number of characters to append
+	 */
+	public void append(byte [] chunk, int off, int len) {
+		if (off < 0 || len < 0 || off + len > chunk.length)
+			throw new IndexOutOfBoundsException("chunk of length " + len + " at " + off);
+		if (len > Integer.MAX_VALUE - 8 - stringLen)
+			throw new IllegalStateException("the string would be too long to be held in an array");
+		if (stringLen + len > s.length) {
+			s = Arrays.copyOf(s, (int) Math.min(Integer.MAX_VALUE - 8,
+					Math.max(2L * s.length, stringLen + len)));
+			builder.setString(s);
+		}
+		System.arraycopy(chunk, off, s, stringLen, len);
+		for (int i = stringLen; i < stringLen + len; i++)
+			builder.extend(i);
+		stringLen += len;
+	}
+
+	/**
+	 * Search the tree for a target x, as SuffixTreeAppl.searchSuffixTree.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchSuffixTree(byte [] x) {
+		Task1Info t1Info = new Task1Info();
+		SuffixTreeNode node = locate(x);
+		if (node != null) {
+			while (node.getChild() != null)
+				node = node.getChild();
+			t1Info.setPos(node.getSuffix());
+			t1Info.setMatchNode(node);
+		}
+		return t1Info;
+	}
+
+	/**
+	 * Search the tree for all occurrences of a target x.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task2Info object
+	 */
+	public Task2Info allOccurrences(byte [] x) {
+		Task2Info t2Info = new Task2Info();
+		forEachOccurrence(x, t2Info);
+		return t2Info;
+	}
+
+	/**
+	 * Passes each occurrence of target x to a visitor: first those at the
+	 * leaves below the point at which x is matched, then those among the
+	 * suffixes that do not yet end at a leaf.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor, which may end the search early
+	 */
+	public void forEachOccurrence(byte [] x, OccurrenceVisitor v) {
+		SuffixTreeNode node = locate(x);
+		if (node == null)
+			return;
+
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			SuffixTreeNode current = stack.pop();
+			if (current.getChild() == null) {
+				if (!v.visit(current.getSuffix()))
+					return;
+			}
+			else
+				for (SuffixTreeNode child = current.getChild(); child != null; child = child.getSibling())
+					stack.push(child);
+		}
+
+		for (int i = stringLen - builder.getRemainder(); i + x.length <= stringLen; i++) {
+			int j = 0;
+			while (j < x.length && s[i + j] == x[j])
+				j++;
+			if (j == x.length && !v.visit(i))
+				return;
+		}
+	}
+
+	/**
+	 * Finds the node at or below the point at which x is matched.
+	 * 
+	 * @return the node (null if x is empty or does not occur)
+	 */
+	private SuffixTreeNode locate(byte [] x) {
+		SuffixTreeNode current = root;
+		int i = 0;
+
+		if (x.length == 0)
+			return null;
+		while (i < x.length) {
+			SuffixTreeNode next = current.findChild(s, x[i]);
+			if (next == null)
+				return null;
+			int end = Math.min(next.getRightLabel(), stringLen - 1);
+			for (int j = next.getLeftLabel(); j <= end && i < x.length; j++, i++)
+				if (s[j] != x[i])
+					return null;
+			current = next;
+		}
+		return current;
+	}
+
+	/**
+	 * Gets the root node.
+	 * 
+	 * @return the root node
+	 */
+	public SuffixTreeNode getRoot() { return root; }
+
+	/**
+	 * Gets the array holding the string, which is replaced by a larger one
+	 * as the string grows.
+	 * 
+	 * @return the array holding the string in positions 0 to getStringLen()-1
+	 */
+	public byte[] getString() { return s; }
+
+	/**
+	 * Gets the length of the string.
+	 * 
+	 * @return the length of the string
+	 */
+	public int getStringLen() { return stringLen; }
+}
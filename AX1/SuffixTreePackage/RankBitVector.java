@@ -0,0 +1,86 @@
+package SuffixTreePackage;
+
+/**
+ * Class for a fixed-length vector of bits supporting rank queries (the
+ * number of 1s before a given position) in constant time.
+ * 
+ * The bits are packed 64 to a long, and the rank before each block of 512
+ * bits is stored, so that a rank query counts the 1s in at most eight
+ * words; the ranks add 1/16 of a bit per bit.
+ */
+
+class RankBitVector {
+
+	/** The bits, bit i being bit i % 64 of word i / 64. */
+	private long [] bits;
+
+	/** blockRanks[b] is the number of 1s before bit 512 * b (valid once buildRanks has been called). */
+	private int [] blockRanks;
+
+	/**
+	 * Instantiates a vector of n bits, all 0.
+	 * 
+	 * @param n the number of bits
+	 */
+	RankBitVector(int n) {
+		bits = new long[(n >>> 6) + 1];
+	}
+
+	/**
+	 * Sets bit i to 1.
+	 * - must not be called after buildRanks
+	 * 
+	 * @param i the position of the bit
+	 */
+	void set(int i) { bits[i >>> 6] |= 1L << i; }
+
+	/**
+	 * Gets bit i.
+	 * 
+	 * @param i the position of the bit
+	 * @return true if bit i is 1
+	 */
+	boolean get(int i) { return (bits[i >>> 6] & (1L << i)) != 0; }
+
+	/**
+	 * Computes the ranks of the blocks, once all bits have been set.
+	 */
+	void buildRanks() {
+		blockRanks = new int[(bits.length >>> 3) + 1];
+		int r = 0;
+		for (int w = 0; w < bits.length; w++) {
+			if ((w & 7) == 0)
+				blockRanks[w >>> 3] = r;
+			r += Long.bitCount(bits[w]);
+		}
+	}
+
+	/**
+	 * Counts the 1s before position i.
+	 * 
+	 * @param i a position from 0 to n
+	 * @return the number of 1s in positions 0 to i-1
+	 */
+	int rank1(int i) {
+		int w = i >>> 6;
+		int r = blockRanks[w >>> 3];
+		for (int k = w & ~7; k < w; k++)
+			r += Long.bitCount(bits[k]);
+		return r + Long.bitCount(bits[w] & ((1L << i) - 1));
+	}
+
+	/**
+	 * Counts the 0s before position i.
+	 * 
+	 * @param i a position from 0 to n
+	 * @return the number of 0s in positions 0 to i-1
+	 */
+	int rank0(int i) { return i - rank1(i); }
+
+	/**
+	 * Gets the approximate memory taken by the vector.
+	 * 
+	 * @return the size in bytes
+	 */
+	long getSizeInBytes() { return 8L * bits.length + 4L * blockRanks.length; }
+}
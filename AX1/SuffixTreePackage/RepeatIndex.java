@@ -0,0 +1,17 @@
+package SuffixTreePackage;
+
+/**
+ * Interface for indexes that can also find a longest repeated substring
+ * (Task 3), which needs the lengths of the common prefixes of suffixes:
+ * the suffix trees and suffix arrays, but not the FM-index.
+ */
+
+public interface RepeatIndex extends TextIndex {
+
+	/**
+	 * Finds two embeddings of a longest repeated substring (Task 3).
+	 * 
+	 * @return a Task3Info object
+	 */
+	public Task3Info traverseForLrs();
+}
@@ -0,0 +1,53 @@
+package SuffixTreePackage;
+
+/**
+ * Class for representing a repeated substring found by the
+ * longestRepeats and maximalRepeats methods of SuffixTreeAppl.
+ */
+
+public class RepeatInfo {
+
+	/** The length of the repeat. */
+	private int len;
+
+	/** The starting position of the first occurrence of the repeat. */
+	private int pos;
+
+	/** The number of occurrences of the repeat. */
+	private int count;
+
+	/**
+	 * Constructor with parameters.
+	 * 
+	 * @param l the length of the repeat
+	 * @param p the starting position of the first occurrence of the repeat
+	 * @param c the number of occurrences of the repeat
+	 */
+	public RepeatInfo(int l, int p, int c)
+	{
+		len = l;
+		pos = p;
+		count = c;
+	}
+
+	/**
+	 * Gets the length of the repeat.
+	 * 
+	 * @return the length of the repeat
+	 */
+	public int getLen() { return len; }
+
+	/**
+	 * Gets the starting position of the first occurrence of the repeat.
+	 * 
+	 * @return the starting position of the first occurrence
+	 */
+	public int getPos() { return pos; }
+
+	/**
+	 * Gets the number of occurrences of the repeat.
+	 * 
+	 * @return the number of occurrences
+	 */
+	public int getCount() { return count; }
+}
@@ -0,0 +1,196 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Class for reading a file, or a section of one, of any length through
+ * memory mappings, with long offsets.  A section mapped with mapWritable
+ * may be written as well, for scratch arrays too large for the heap.
+ * 
+ * A single mapping (like a byte array) holds at most 2^31-1 bytes, so the
+ * file is mapped as a series of segments of 2^segmentBits bytes each,
+ * the byte at offset p being in segment p >>> segmentBits.  Ints and longs
+ * are read little-endian; one aligned to its own size never straddles two
+ * segments.
+ */
+
+public class SegmentedText {
+
+	/** Default number of bits of an offset within a segment (1 GB segments). */
+	public static final int DEFAULT_SEGMENT_BITS = 30;
+
+	/** The segments, each mapped read-only unless mapped by mapWritable. */
+	private ByteBuffer [] segments;
+
+	/** Number of bits of an offset within a segment. */
+	private int segmentBits;
+
+	/** Mask giving the offset within a segment. */
+	private long segmentMask;
+
+	/** Length in bytes of the mapped file or section. */
+	private long length;
+
+	/**
+	 * Instantiates a reader over mapped segments.
+	 */
+	private SegmentedText(ByteBuffer [] segs, int bits, long len) {
+		segments = segs;
+		segmentBits = bits;
+		segmentMask = (1L << bits) - 1;
+		length = len;
+	}
+
+	/**
+	 * Maps a whole file in segments of the default size.
+	 * 
+	 * @param fileName the name of the file
+	 * @return the mapped file
+	 * @throws IOException if the file cannot be read
+	 */
+	public static SegmentedText map(String fileName) throws IOException {
+		return map(fileName, DEFAULT_SEGMENT_BITS);
+	}
+
+	/**
+	 * Maps a whole file in segments of a given size.
+	 * 
+	 * @param fileName the name of the file
+	 * @param bits the number of bits of an offset within a segment (3 to 30)
+	 * @return the mapped file
+	 * @throws IOException if the file cannot be read
+	 */
+	public static SegmentedText map(String fileName, int bits) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+		try {
+			return map(channel, 0, channel.size(), bits);
+		}
+		finally {
+			// the mappings remain valid after the channel is closed
+			channel.close();
+		}
+	}
+
+	/**
+	 * Maps a section of an open file in segments of a given size.
+	 * 
+	 * @param channel the file
+	 * @param offset the offset in the file of the start of the section
+	 * @param size the length of the section
+	 * @param bits the number of bits of an offset within a segment (3 to 30)
+	 * @return the mapped section
+	 * @throws IOException if the file cannot be read
+	 */
+	public static SegmentedText map(FileChannel channel, long offset, long size, int bits)
+			throws IOException {
+		return map(channel, offset, size, bits, FileChannel.MapMode.READ_ONLY);
+	}
+
+	/**
+	 * Maps a section of a file open for reading and writing so that it may
+	 * be written, in segments of a given size; the file is extended if the
+	 * section runs past its end.
+	 * 
+	 * @param channel the file
+	 * @param offset the offset in the file of the start of the section
+	 * @param size the length of the section
+	 * @param bits the number of bits of an offset within a segment (3 to 30)
+	 * @return the mapped section
+	 * @throws IOException if the file cannot be read or written
+	 */
+	public static SegmentedText mapWritable(FileChannel channel, long offset, long size, int bits)
+			throws IOException {
+		return map(channel, offset, size, bits, FileChannel.MapMode.READ_WRITE);
+	}
+
+	private static SegmentedText map(FileChannel channel, long offset, long size, int bits,
+			FileChannel.MapMode mode) throws IOException {
+		if (bits < 3 || bits > 30)
+			throw new IllegalArgumentException("segment bits " + bits);
+		long segmentSize = 1L << bits;
+		int count = (int) ((size + segmentSize - 1) >>> bits);
+		ByteBuffer [] segs = new ByteBuffer[Math.max(count, 1)];
+
+		for (int k = 0; k < count; k++) {
+			long start = (long) k << bits;
+			segs[k] = channel.map(mode, offset + start,
+					Math.min(segmentSize, size - start)).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		if (count == 0)
+			segs[0] = ByteBuffer.allocate(0);
+		return new SegmentedText(segs, bits, size);
+	}
+
+	/**
+	 * Gets a byte.
+	 * 
+	 * @param p the offset of the byte
+	 * @return the byte at offset p
+	 */
+	public byte byteAt(long p) {
+		return segments[(int) (p >>> segmentBits)].get((int) (p & segmentMask));
+	}
+
+	/**
+	 * Gets an int, which must not straddle two segments.
+	 * 
+	 * @param p the offset of the first byte of the int
+	 * @return the int at offset p
+	 */
+	public int intAt(long p) {
+		return segments[(int) (p >>> segmentBits)].getInt((int) (p & segmentMask));
+	}
+
+	/**
+	 * Gets a long, which must not straddle two segments.
+	 * 
+	 * @param p the offset of the first byte of the long
+	 * @return the long at offset p
+	 */
+	public long longAt(long p) {
+		return segments[(int) (p >>> segmentBits)].getLong((int) (p & segmentMask));
+	}
+
+	/**
+	 * Sets an int, which must not straddle two segments.
+	 * - assumes that the section was mapped by mapWritable
+	 * 
+	 * @param p the offset of the first byte of the int
+	 * @param v the new value
+	 */
+	public void putInt(long p, int v) {
+		segments[(int) (p >>> segmentBits)].putInt((int) (p & segmentMask), v);
+	}
+
+	/**
+	 * Sets a long, which must not straddle two segments.
+	 * - assumes that the section was mapped by mapWritable
+	 * 
+	 * @param p the offset of the first byte of the long
+	 * @param v the new value
+	 */
+	public void putLong(long p, long v) {
+		segments[(int) (p >>> segmentBits)].putLong((int) (p & segmentMask), v);
+	}
+
+	/**
+	 * Writes any changes made through a writable mapping to the file.
+	 */
+	public void force() {
+		for (ByteBuffer segment : segments)
+			if (segment instanceof MappedByteBuffer)
+				((MappedByteBuffer) segment).force();
+	}
+
+	/**
+	 * Gets the length.
+	 * 
+	 * @return the number of bytes
+	 */
+	public long length() { return length; }
+}
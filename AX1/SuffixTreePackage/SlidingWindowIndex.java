@@ -0,0 +1,174 @@
+package SuffixTreePackage;
+
+import java.util.ArrayList;
+
+/**
+ * Class for an index of the last windowSize characters of a stream, for
+ * monitoring a growing input such as a log file in bounded memory.
+ * 
+ * The stream is cut into blocks of windowSize characters, and an
+ * OnlineSuffixTree is begun at the start of each block and extended with
+ * everything appended after it.  The oldest tree therefore always covers
+ * the whole window; once the next tree also does, the oldest is thrown
+ * away.  At most two trees are live, the older covering at most twice the
+ * window, so memory stays proportional to the window size and no tree is
+ * ever rebuilt.  Searches are made in the oldest tree, leaving out
+ * occurrences that start before the window.
+ * 
+ * Positions reported by searches are relative to the start of the window
+ * (see getWindowStart).
+ */
+
+public class SlidingWindowIndex {
+
+	/** An online suffix tree of the stream from a given offset onwards. */
+	private static class Block {
+		OnlineSuffixTree tree;
+		long start;
+
+		Block(long offset, int capacity) {
+			tree = new OnlineSuffixTree(capacity);
+			start = offset;
+		}
+	}
+
+	/** Number of characters in a full window. */
+	private int windowSize;
+
+	/** The live trees, oldest first. */
+	private ArrayList<Block> blocks;
+
+	/** Number of characters appended to the stream so far. */
+	private long streamLen;
+
+	/**
+	 * Instantiates an index of an empty stream.
+	 * 
+	 * @param size the number of characters in a full window
+	 */
+	public SlidingWindowIndex (int size) {
+		if (size < 1 || size > (Integer.MAX_VALUE - 8) / 2)
+			throw new IllegalArgumentException("window size " + size);
+		windowSize = size;
+		blocks = new ArrayList<Block>();
+		streamLen = 0;
+	}
+
+	/**
+	 * Appends a chunk to the stream, moving the window on.
+	 * 
+	 * @param chunk the characters to append
+	 */
+	public void append(byte [] chunk) {
+		append(chunk, 0, chunk.length);
+	}
+
+	/**
+	 * Appends part of an array to the stream, moving the window on.
+	 * 
+	 * @param chunk the array holding the characters to append
+	 * @param off the position in chunk of the first character to append
+	 * @param len the number of characters to append
+	 */
+	public void append(byte [] chunk, int off, int len) {
+		if (off < 0 || len < 0 || off + len > chunk.length)
+			throw new IndexOutOfBoundsException("chunk of length " + len + " at " + off);
+
+		while (len > 0) {
+			// begin a new tree at each block boundary
+			if (streamLen % windowSize == 0)
+				blocks.add(new Block(streamLen, Math.min(2 * windowSize, 1 << 12)));
+
+			int n = (int) Math.min(len, windowSize - streamLen % windowSize);
+			for (Block b : blocks)
+				b.tree.append(chunk, off, n);
+			streamLen += n;
+			off += n;
+			len -= n;
+
+			// the oldest tree is not needed once the next one covers the window
+			while (blocks.size() > 1 && blocks.get(1).start <= getWindowStart())
+				blocks.remove(0);
+		}
+	}
+
+	/**
+	 * Search the window for a target x.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object, with the position relative to the start of the window
+	 */
+	public Task1Info searchSuffixTree(byte [] x) {
+		final Task1Info t1Info = new Task1Info();
+		forEachOccurrence(x, new OccurrenceVisitor() {
+			public boolean visit(long pos) {
+				t1Info.setPos(pos);
+				return false;
+			}
+		});
+		return t1Info;
+	}
+
+	/**
+	 * Search the window for all occurrences of a target x.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task2Info object, with positions relative to the start of the window
+	 */
+	public Task2Info allOccurrences(byte [] x) {
+		Task2Info t2Info = new Task2Info();
+		forEachOccurrence(x, t2Info);
+		return t2Info;
+	}
+
+	/**
+	 * Passes each occurrence of target x in the window to a visitor.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor, which receives positions relative to the start
+	 * of the window and may end the search early
+	 */
+	public void forEachOccurrence(byte [] x, final OccurrenceVisitor v) {
+		if (blocks.isEmpty())
+			return;
+		final Block oldest = blocks.get(0);
+		final long windowStart = getWindowStart();
+		oldest.tree.forEachOccurrence(x, new OccurrenceVisitor() {
+			public boolean visit(long pos) {
+				long offset = oldest.start + pos;
+				return offset < windowStart || v.visit(offset - windowStart);
+			}
+		});
+	}
+
+	/**
+	 * Gets the offset in the stream of the start of the window.
+	 * 
+	 * @return the number of characters that have left the window
+	 */
+	public long getWindowStart() { return Math.max(0, streamLen - windowSize); }
+
+	/**
+	 * Gets the number of characters in the window, which is less than the
+	 * window size only until that many have been appended.
+	 * 
+	 * @return the number of characters in the window
+	 */
+	public int getWindowLength() { return (int) (streamLen - getWindowStart()); }
+
+	/**
+	 * Gets the number of characters in a full window.
+	 * 
+	 * @return the window size
+	 */
+	public int getWindowSize() { return windowSize; }
+
+	/**
+	 * Gets the number of characters appended to the stream so far.
+	 * 
+	 * @return the length of the stream
+	 */
+	public long getStreamLen() { return streamLen; }
+}
@@ -0,0 +1,346 @@
+package SuffixTreePackage;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class collecting counters of the work done in building and searching
+ * suffix trees, and histograms of the times taken by construction phases
+ * and by the operations of SuffixTreeAppl.
+ * 
+ * Statistics are collected only if the system property suffixtree.stats
+ * is "true" when the class is loaded (java -Dsuffixtree.stats=true ...).
+ * ENABLED is a static final field, so that the JIT compiler treats it as
+ * a constant: with statistics disabled every test of ENABLED, and the
+ * counting it guards, is compiled away.  The methods that count and time
+ * test ENABLED themselves and are small enough to be inlined, so that
+ * callers need not.
+ * 
+ * Counters and histograms are held in LongAdders, so that the tasks of a
+ * parallel build may update them without contending.  Histogram bucket b
+ * of a timer counts the operations that took from 2^b to 2^(b+1)-1
+ * nanoseconds.  When enabled, the statistics are registered with the
+ * platform MBean server as OBJECT_NAME (see StatsMXBean), and dump()
+ * gives them as text.
+ */
+
+public final class Stats implements StatsMXBean {
+
+	/** Whether statistics are collected. */
+	public static final boolean ENABLED = Boolean.getBoolean("suffixtree.stats");
+
+	/** Name under which the statistics are registered with the platform MBean server. */
+	public static final String OBJECT_NAME = "SuffixTreePackage:type=Stats";
+
+	/** Number of buckets in each histogram, one per power of two of nanoseconds. */
+	static final int BUCKETS = 64;
+
+	/**
+	 * Things counted.
+	 */
+	public enum Counter {
+		/** Positions of strings added to suffix trees under construction. */
+		POSITIONS_ADDED,
+		/** Suffix tree nodes created. */
+		NODES_CREATED,
+		/** Edges split by the naive algorithm or by Ukkonen's algorithm. */
+		SPLITS,
+		/** Characters matched along edges by the naive algorithm. */
+		CHARACTERS_MATCHED,
+		/** Suffix links followed by Ukkonen's algorithm. */
+		SUFFIX_LINKS_FOLLOWED,
+		/** Edges walked down by Ukkonen's algorithm (the skip/count trick). */
+		EDGES_SKIPPED,
+		/** Children found through a node's index of children. */
+		TABLE_LOOKUPS,
+		/** Siblings passed over in scanning lists of children. */
+		SIBLING_HOPS
+	}
+
+	/**
+	 * Things timed.
+	 */
+	public enum Timer {
+		/** Building a suffix tree by the naive algorithm. */
+		BUILD_NAIVE,
+		/** Building a suffix tree by Ukkonen's algorithm. */
+		BUILD_UKKONEN,
+		/** Building a suffix tree in parallel from its suffix array. */
+		BUILD_PARALLEL,
+		/** Parallel build: computing the suffix array and LCP array. */
+		PARALLEL_SORT,
+		/** Parallel build: building the subtrees from the LCP intervals. */
+		PARALLEL_SUBTREES,
+		/** Marking the nodes of a generalised suffix tree with the strings below them. */
+		MARK_STRINGS,
+		/** Computing the leaf count of every node. */
+		LEAF_COUNTS,
+		/** SuffixTreeAppl.searchSuffixTree. */
+		SEARCH,
+		/** SuffixTreeAppl.allOccurrences and forEachOccurrence. */
+		OCCURRENCES,
+		/** SuffixTreeAppl.countOccurrences. */
+		COUNT,
+		/** SuffixTreeAppl.documentsContaining. */
+		DOCUMENTS,
+		/** SuffixTreeAppl.searchApproximate. */
+		APPROXIMATE,
+		/** SuffixTreeAppl.traverseForLrs. */
+		LRS,
+		/** SuffixTreeAppl.longestRepeats and maximalRepeats. */
+		REPEATS,
+		/** SuffixTreeAppl.traverseForLcs. */
+		LCS,
+		/** SuffixTreeAppl.streamForLcs. */
+		STREAM_LCS;
+
+		/**
+		 * Gets the timer for building a suffix tree by a given method.
+		 * 
+		 * @param m the construction algorithm
+		 * @return the timer
+		 */
+		public static Timer build(BuildMethod m) {
+			switch (m) {
+				case NAIVE: return BUILD_NAIVE;
+				case PARALLEL: return BUILD_PARALLEL;
+				default: return BUILD_UKKONEN;
+			}
+		}
+	}
+
+	/** The values of the counters, indexed by ordinal. */
+	private static final LongAdder [] counters = new LongAdder[Counter.values().length];
+
+	/** The histograms of the timers, indexed by ordinal and bucket. */
+	private static final LongAdder [][] histograms = new LongAdder[Timer.values().length][BUCKETS];
+
+	/** The total times of the timers in nanoseconds, indexed by ordinal. */
+	private static final LongAdder [] totals = new LongAdder[Timer.values().length];
+
+	/** The longest times of the timers in nanoseconds, indexed by ordinal. */
+	private static final LongAccumulator [] maxima = new LongAccumulator[Timer.values().length];
+
+	/** The instance registered with the platform MBean server. */
+	private static final Stats INSTANCE = new Stats();
+
+	static {
+		for (int c = 0; c < counters.length; c++)
+			counters[c] = new LongAdder();
+		for (int t = 0; t < histograms.length; t++) {
+			for (int b = 0; b < BUCKETS; b++)
+				histograms[t][b] = new LongAdder();
+			totals[t] = new LongAdder();
+			maxima[t] = new LongAccumulator(Math::max, 0);
+		}
+		if (ENABLED) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+			}
+			catch (JMException e) {
+				// already registered (by another class loader); dump() still works
+			}
+		}
+	}
+
+	private Stats() {
+	}
+
+	/**
+	 * Gets the instance registered with the platform MBean server.
+	 * 
+	 * @return the instance
+	 */
+	public static Stats getInstance() { return INSTANCE; }
+
+	/**
+	 * Adds one to a counter, if statistics are enabled.
+	 * 
+	 * @param c the counter
+	 */
+	public static void increment(Counter c) {
+		if (ENABLED)
+			counters[c.ordinal()].increment();
+	}
+
+	/**
+	 * Adds to a counter, if statistics are enabled.
+	 * 
+	 * @param c the counter
+	 * @param n the amount to add
+	 */
+	public static void add(Counter c, long n) {
+		if (ENABLED && n != 0)
+			counters[c.ordinal()].add(n);
+	}
+
+	/**
+	 * Gets the value of a counter.
+	 * 
+	 * @param c the counter
+	 * @return the value
+	 */
+	public static long get(Counter c) { return counters[c.ordinal()].sum(); }
+
+	/**
+	 * Starts timing an operation.
+	 * 
+	 * @return the time to be passed to stop (0 if statistics are disabled)
+	 */
+	public static long start() {
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Finishes timing an operation, if statistics are enabled, adding its
+	 * time to the histogram of a timer.
+	 * 
+	 * @param t the timer
+	 * @param start the time returned by start when the operation began
+	 */
+	public static void stop(Timer t, long start) {
+		if (ENABLED) {
+			long nanos = Math.max(System.nanoTime() - start, 1);
+			int i = t.ordinal();
+			histograms[i][63 - Long.numberOfLeadingZeros(nanos)].increment();
+			totals[i].add(nanos);
+			maxima[i].accumulate(nanos);
+		}
+	}
+
+	/**
+	 * Gets the number of operations timed by a timer.
+	 * 
+	 * @param t the timer
+	 * @return the number of operations
+	 */
+	public static long count(Timer t) {
+		long n = 0;
+		for (LongAdder b : histograms[t.ordinal()])
+			n += b.sum();
+		return n;
+	}
+
+	/**
+	 * Gets an upper bound on a percentile of the times of a timer: the top
+	 * of the histogram bucket holding it, or the longest time if less.
+	 * 
+	 * @param t the timer
+	 * @param p the percentile, from 0 to 100
+	 * @return the bound in nanoseconds (0 if nothing has been timed)
+	 */
+	public static long percentile(Timer t, double p) {
+		long [] h = histogram(t);
+		long n = 0;
+		for (long c : h)
+			n += c;
+		long rank = Math.max((long) Math.ceil(p / 100 * n), 1), seen = 0;
+		for (int b = 0; b < BUCKETS && n > 0; b++) {
+			seen += h[b];
+			if (seen >= rank)
+				return Math.min(b == 62 ? Long.MAX_VALUE : (2L << b) - 1, maxima[t.ordinal()].get());
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the histogram of times of a timer.
+	 * 
+	 * @param t the timer
+	 * @return the number of operations in each bucket
+	 */
+	public static long [] histogram(Timer t) {
+		long [] h = new long[BUCKETS];
+		for (int b = 0; b < BUCKETS; b++)
+			h[b] = histograms[t.ordinal()][b].sum();
+		return h;
+	}
+
+	/**
+	 * Gives the counters, and the timers that have timed any operation, as
+	 * text.
+	 * 
+	 * @return the statistics, one per line
+	 */
+	public static String dump() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-22s %14s%n", "counter", "value"));
+		for (Counter c : Counter.values())
+			sb.append(String.format("%-22s %14d%n", c.name().toLowerCase(), get(c)));
+		sb.append(String.format("%n%-22s %10s %12s %10s %10s %10s %10s %10s%n", "timer", "count",
+				"total(ms)", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "max(us)"));
+		for (Timer t : Timer.values()) {
+			long n = count(t);
+			if (n == 0)
+				continue;
+			long total = totals[t.ordinal()].sum();
+			sb.append(String.format("%-22s %10d %12.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+					t.name().toLowerCase(), n, total / 1e6, total / 1e3 / n,
+					percentile(t, 50) / 1e3, percentile(t, 90) / 1e3,
+					percentile(t, 99) / 1e3, maxima[t.ordinal()].get() / 1e3));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Sets every counter and timer back to zero.  Updates made while this
+	 * runs may or may not be kept.
+	 */
+	public static void clear() {
+		for (LongAdder c : counters)
+			c.reset();
+		for (int t = 0; t < histograms.length; t++) {
+			for (LongAdder b : histograms[t])
+				b.reset();
+			totals[t].reset();
+			maxima[t].reset();
+		}
+	}
+
+	public boolean isEnabled() { return ENABLED; }
+
+	public Map<String, Long> getCounters() {
+		Map<String, Long> map = new LinkedHashMap<String, Long>();
+		for (Counter c : Counter.values())
+			map.put(c.name().toLowerCase(), get(c));
+		return map;
+	}
+
+	public Map<String, Long> getOperationCounts() {
+		Map<String, Long> map = new LinkedHashMap<String, Long>();
+		for (Timer t : Timer.values())
+			map.put(t.name().toLowerCase(), count(t));
+		return map;
+	}
+
+	public Map<String, Double> getMeanMicros() {
+		Map<String, Double> map = new LinkedHashMap<String, Double>();
+		for (Timer t : Timer.values()) {
+			long n = count(t);
+			map.put(t.name().toLowerCase(), n == 0 ? 0 : totals[t.ordinal()].sum() / 1e3 / n);
+		}
+		return map;
+	}
+
+	public long[] getHistogram(String timer) { return histogram(timer(timer)); }
+
+	public double getPercentileMicros(String timer, double p) { return percentile(timer(timer), p) / 1e3; }
+
+	public String getDump() { return dump(); }
+
+	public void reset() { clear(); }
+
+	/**
+	 * Gets a timer by name, in either case.
+	 * 
+	 * @throws IllegalArgumentException if there is no such timer
+	 */
+	private static Timer timer(String name) {
+		return Timer.valueOf(name.toUpperCase());
+	}
+}
@@ -0,0 +1,71 @@
+package SuffixTreePackage;
+
+import java.util.Map;
+
+/**
+ * Management interface through which the statistics collected by Stats
+ * are read over JMX, under the name Stats.OBJECT_NAME.
+ */
+
+public interface StatsMXBean {
+
+	/**
+	 * Is the collection of statistics enabled?
+	 * 
+	 * @return true if statistics are being collected
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Gets the value of every counter.
+	 * 
+	 * @return the values, keyed by the names of the counters
+	 */
+	public Map<String, Long> getCounters();
+
+	/**
+	 * Gets the number of operations timed by every timer.
+	 * 
+	 * @return the numbers of operations, keyed by the names of the timers
+	 */
+	public Map<String, Long> getOperationCounts();
+
+	/**
+	 * Gets the mean time of the operations timed by every timer.
+	 * 
+	 * @return the mean times in microseconds, keyed by the names of the timers
+	 */
+	public Map<String, Double> getMeanMicros();
+
+	/**
+	 * Gets the histogram of times of a timer: entry b is the number of
+	 * operations that took from 2^b to 2^(b+1)-1 nanoseconds.
+	 * 
+	 * @param timer the name of the timer
+	 * 
+	 * @return the histogram
+	 */
+	public long[] getHistogram(String timer);
+
+	/**
+	 * Gets an upper bound on a percentile of the times of a timer.
+	 * 
+	 * @param timer the name of the timer
+	 * @param p the percentile, from 0 to 100
+	 * 
+	 * @return the bound in microseconds (0 if nothing has been timed)
+	 */
+	public double getPercentileMicros(String timer, double p);
+
+	/**
+	 * Gets the statistics as text, as printed by Stats.dump.
+	 * 
+	 * @return the statistics
+	 */
+	public String getDump();
+
+	/**
+	 * Sets every counter and timer back to zero.
+	 */
+	public void reset();
+}
@@ -0,0 +1,352 @@
+package SuffixTreePackage;
+
+/**
+ * Class for construction of suffix arrays, as a low-memory alternative
+ * to the SuffixTree class.
+ * 
+ * The suffix array is built in O(n) time by the SA-IS algorithm of Nong,
+ * Zhang and Chan (induced sorting of LMS substrings).  The LCP array,
+ * holding the length of the longest common prefix of each pair of
+ * adjacent suffixes, is built on first use by Kasai et al.'s algorithm.
+ * 
+ * The string is laid out exactly as in SuffixTree, so that positions
+ * reported by the two structures agree.  The final termination character
+ * is treated as smaller than every other character; the suffix array
+ * therefore always starts with the suffix consisting of '$' alone.
+ * 
+ * The array takes 4 bytes per character and the LCP array a further 4,
+ * compared with upwards of 40 bytes per node (and about 2n nodes) for
+ * the suffix tree.
+ */
+
+public class SuffixArray {
+
+	/** String (byte array) corresponding to suffix array. */
+	private byte [] s;
+
+	/** Length of string corresponding to suffix array (without termination characters). */
+	private int stringLen;
+
+	/** The suffix array: sa[i] is the starting position in s of the i-th smallest suffix. */
+	private int [] sa;
+
+	/** lcp[i] is the length of the longest common prefix of suffixes sa[i-1] and sa[i] (lcp[0]=0). */
+	private int [] lcp;
+
+	/**
+	 * Builds the suffix array for a given string.
+	 * 
+	 * @param sInput the string whose suffix array is to be built
+	 * - assumes that characters of sInput occupy positions 0 onwards
+	 */
+	public SuffixArray (byte [] sInput) {
+		this(sInput, sInput.length);
+	}
+
+	/**
+	 * Builds the suffix array for the string held in the first len positions
+	 * of an array, which is copied.
+	 * 
+	 * @param sBuffer the array holding the string whose suffix array is to be built
+	 * @param len the length of the string
+	 */
+	public SuffixArray (byte [] sBuffer, int len) {
+		this(sBuffer, len, false);
+	}
+
+	/**
+	 * Builds the suffix array for the string held in the first len positions
+	 * of an array, optionally taking the array over as the string of the
+	 * suffix array (as in SuffixTree(byte[], int, BuildMethod, boolean)).
+	 * 
+	 * @param sBuffer the array holding the string whose suffix array is to be built
+	 * @param len the length of the string
+	 * @param adopt true to take the array over, false to copy it
+	 * @throws IllegalArgumentException if the array is to be taken over but
+	 * its length is not len + 1
+	 */
+	public SuffixArray (byte [] sBuffer, int len, boolean adopt) {
+		stringLen = len;
+		if (adopt) {
+			if (sBuffer.length != stringLen + 1)
+				throw new IllegalArgumentException("an adopted array must have exactly one position more than the string");
+			s = sBuffer;             // the buffer already has room for the termination character
+		}
+		else {
+			s = new byte[stringLen + 1]; // create longer byte array ready for termination character
+			System.arraycopy(sBuffer, 0, s, 0, stringLen);
+		}
+		s[stringLen] = (byte) '$';   // append termination character to original string
+		buildSuffixArray();
+	}
+
+	/**
+	 * Builds a generalised suffix array for two given strings.
+	 * 
+	 * @param sInput1 the first string
+	 * @param sInput2 the second string
+	 * - assumes that '#' does not occur as a character anywhere in sInput1 or sInput2
+	 * - assumes that characters of sInput1 and sInput2 occupy positions 0 onwards
+	 */
+	public SuffixArray (byte[] sInput1, byte[] sInput2) {
+		stringLen = sInput1.length + sInput2.length;
+		s = new byte[stringLen + 2]; // create longer byte array ready for termination characters
+
+		System.arraycopy(sInput1, 0, s, 0, sInput1.length);
+		s[sInput1.length] = (byte) '#';   // append termination character to original string
+
+		System.arraycopy(sInput2, 0, s, sInput1.length + 1, sInput2.length);
+		s[stringLen + 1] = (byte) '$';   // append termination character to original string
+
+		// '#' separates the strings only if it is unique
+		for (int i = 0; i <= stringLen; i++)
+			if (s[i] == (byte) '#' && i != sInput1.length)
+				throw new IllegalArgumentException("Text file contains a # character!");
+		buildSuffixArray();
+	}
+
+	/**
+	 * Builds the suffix array of s, treating the last position of s as a
+	 * unique sentinel that is smaller than every other character.
+	 */
+	private void buildSuffixArray() {
+		sa = suffixArray(s);
+	}
+
+	/**
+	 * Builds the LCP array.
+	 */
+	private void buildLcp() {
+		lcp = lcpArray(s, sa);
+	}
+
+	/**
+	 * Computes the suffix array of a string by SA-IS, treating the last
+	 * position of the string as a unique sentinel that is smaller than
+	 * every other character (see SuffixTree.buildInParallel).
+	 * 
+	 * @param s the string, ending with a termination character
+	 * @return the suffix array
+	 */
+	static int[] suffixArray(byte [] s) {
+		int [] sa = new int[s.length];
+		sais(new ByteChars(s), sa, s.length, 257);
+		return sa;
+	}
+
+	/**
+	 * Computes the LCP array of a string from its suffix array using Kasai
+	 * et al.'s algorithm, the sentinel matching no other character.
+	 * 
+	 * @param s the string, ending with a termination character
+	 * @param sa the suffix array of s
+	 * @return the LCP array: entry i is the length of the longest common
+	 * prefix of suffixes sa[i-1] and sa[i] (entry 0 is 0)
+	 */
+	static int[] lcpArray(byte [] s, int [] sa) {
+		int n = s.length;
+		int [] rank = new int[n];
+		for (int i = 0; i < n; i++)
+			rank[sa[i]] = i;
+
+		int [] l = new int[n];
+		int h = 0;
+		for (int i = 0; i < n; i++) {
+			if (rank[i] > 0) {
+				// h decreases by at most one from one suffix to the next
+				int j = sa[rank[i] - 1];
+				while (i + h < n - 1 && j + h < n - 1 && s[i + h] == s[j + h])
+					h++;
+				l[rank[i]] = h;
+				if (h > 0)
+					h--;
+			}
+			else
+				h = 0;
+		}
+		return l;
+	}
+
+	/**
+	 * Access to the characters of a string at one level of the SA-IS recursion.
+	 */
+	private interface Chars {
+		int get(int i);
+	}
+
+	/**
+	 * The top-level string: bytes mapped to 1..256, with the last position mapped to 0.
+	 */
+	private static class ByteChars implements Chars {
+		private byte [] b;
+		ByteChars(byte [] bytes) { b = bytes; }
+		public int get(int i) { return i == b.length - 1 ? 0 : (b[i] & 0xff) + 1; }
+	}
+
+	/**
+	 * A reduced string of LMS substring names, used by the recursive step.
+	 */
+	private static class IntChars implements Chars {
+		private int [] a;
+		IntChars(int [] ints) { a = ints; }
+		public int get(int i) { return a[i]; }
+	}
+
+	/**
+	 * Computes the suffix array of t[0..n-1] over the alphabet 0..k-1.
+	 * - assumes that t[n-1] is the unique smallest character
+	 */
+	private static void sais(Chars t, int [] sa, int n, int k) {
+		if (n == 1) {
+			sa[0] = 0;
+			return;
+		}
+
+		// classify each suffix as S-type (true) or L-type (false)
+		boolean [] stype = new boolean[n];
+		stype[n - 1] = true;
+		for (int i = n - 2; i >= 0; i--) {
+			int c = t.get(i), d = t.get(i + 1);
+			stype[i] = c < d || (c == d && stype[i + 1]);
+		}
+
+		// stage 1: induce-sort the LMS substrings from their bucket ends
+		int [] bkt = new int[k];
+		getBuckets(t, bkt, n, k, true);
+		for (int i = 0; i < n; i++)
+			sa[i] = -1;
+		for (int i = 1; i < n; i++)
+			if (isLms(stype, i))
+				sa[--bkt[t.get(i)]] = i;
+		induceL(t, sa, stype, bkt, n, k);
+		induceS(t, sa, stype, bkt, n, k);
+
+		// move the sorted LMS substrings to the front of sa
+		int n1 = 0;
+		for (int i = 0; i < n; i++)
+			if (isLms(stype, sa[i]))
+				sa[n1++] = sa[i];
+
+		// name the LMS substrings; equal substrings get equal names
+		for (int i = n1; i < n; i++)
+			sa[i] = -1;
+		int name = 0, prev = -1;
+		for (int i = 0; i < n1; i++) {
+			int pos = sa[i];
+			boolean diff = false;
+			for (int d = 0; d < n; d++) {
+				if (prev == -1 || t.get(pos + d) != t.get(prev + d)
+						|| stype[pos + d] != stype[prev + d]) {
+					diff = true;
+					break;
+				}
+				else if (d > 0 && (isLms(stype, pos + d) || isLms(stype, prev + d)))
+					break;
+			}
+			if (diff) {
+				name++;
+				prev = pos;
+			}
+			// LMS positions are at least two apart, so pos/2 is a unique slot
+			sa[n1 + pos / 2] = name - 1;
+		}
+		int [] s1 = new int[n1];
+		for (int i = n - 1, j = n1 - 1; i >= n1; i--)
+			if (sa[i] >= 0)
+				s1[j--] = sa[i];
+
+		// stage 2: sort the reduced string, recursing if names are not unique
+		int [] sa1 = new int[n1];
+		if (name < n1)
+			sais(new IntChars(s1), sa1, n1, name);
+		else
+			for (int i = 0; i < n1; i++)
+				sa1[s1[i]] = i;
+
+		// stage 3: induce the full suffix array from the sorted LMS suffixes
+		for (int i = 1, j = 0; i < n; i++)
+			if (isLms(stype, i))
+				s1[j++] = i;
+		for (int i = 0; i < n1; i++)
+			sa1[i] = s1[sa1[i]];
+		for (int i = 0; i < n; i++)
+			sa[i] = -1;
+		getBuckets(t, bkt, n, k, true);
+		for (int i = n1 - 1; i >= 0; i--) {
+			int j = sa1[i];
+			sa[--bkt[t.get(j)]] = j;
+		}
+		induceL(t, sa, stype, bkt, n, k);
+		induceS(t, sa, stype, bkt, n, k);
+	}
+
+	/** Is position i the leftmost of a run of S-type suffixes? */
+	private static boolean isLms(boolean [] stype, int i) {
+		return i > 0 && stype[i] && !stype[i - 1];
+	}
+
+	/** Sets bkt[c] to the start (or end, exclusive) of the bucket for character c. */
+	private static void getBuckets(Chars t, int [] bkt, int n, int k, boolean end) {
+		for (int c = 0; c < k; c++)
+			bkt[c] = 0;
+		for (int i = 0; i < n; i++)
+			bkt[t.get(i)]++;
+		int sum = 0;
+		for (int c = 0; c < k; c++) {
+			sum += bkt[c];
+			bkt[c] = end ? sum : sum - bkt[c];
+		}
+	}
+
+	/** Induces the order of L-type suffixes, scanning sa from left to right. */
+	private static void induceL(Chars t, int [] sa, boolean [] stype, int [] bkt, int n, int k) {
+		getBuckets(t, bkt, n, k, false);
+		for (int i = 0; i < n; i++) {
+			int j = sa[i] - 1;
+			if (j >= 0 && !stype[j])
+				sa[bkt[t.get(j)]++] = j;
+		}
+	}
+
+	/** Induces the order of S-type suffixes, scanning sa from right to left. */
+	private static void induceS(Chars t, int [] sa, boolean [] stype, int [] bkt, int n, int k) {
+		getBuckets(t, bkt, n, k, true);
+		for (int i = n - 1; i >= 0; i--) {
+			int j = sa[i] - 1;
+			if (j >= 0 && stype[j])
+				sa[--bkt[t.get(j)]] = j;
+		}
+	}
+
+	/**
+	 * Gets the suffix array.
+	 * 
+	 * @return the suffix array
+	 */
+	public int[] getSuffixArray() { return sa; }
+
+	/**
+	 * Gets the LCP array, building it if necessary.
+	 * 
+	 * @return the LCP array
+	 */
+	public synchronized int[] getLcp() {
+		if (lcp == null)
+			buildLcp();
+		return lcp;
+	}
+
+	/**
+	 * Gets the string represented by the suffix array.
+	 * 
+	 * @return the string represented by the suffix array
+	 */
+	public byte[] getString() { return s; }
+
+	/**
+	 * Gets the length of the string represented by the suffix array.
+	 * 
+	 * @return the length of the string represented by the suffix array
+	 */
+	public int getStringLen() { return stringLen; }
+}
@@ -0,0 +1,245 @@
+package SuffixTreePackage;
+
+/**
+ * Class with methods for carrying out the suffix tree applications
+ * (Tasks 1-4) using a suffix array and its LCP array instead.
+ * 
+ * Searching is by binary search for the interval of the suffix array
+ * whose suffixes have the target as a prefix, taking O(m log n) time for
+ * a target of length m.  The longest repeated and longest common
+ * substrings are found by a single scan of the LCP array.
+ */
+
+public class SuffixArrayAppl implements RepeatIndex, CommonSubstringIndex {
+
+	/** The suffix array */
+	private SuffixArray a;
+
+	/**
+	 * Default constructor.
+	 */
+	public SuffixArrayAppl () {
+		a = null;
+	}
+
+	/**
+	 * Constructor with parameter.
+	 * 
+	 * @param array the suffix array
+	 */
+	public SuffixArrayAppl (SuffixArray array) {
+		a = array;
+	}
+
+	/**
+	 * Search the suffix array representing string s for a target x.
+	 * Stores -1 in Task1Info.pos if x is not a substring of s,
+	 * otherwise stores p in Task1Info.pos such that x occurs in s
+	 * starting at s[p] (p counts from 0).  Task1Info.matchNode is
+	 * always null.
+	 * - assumes that characters of s and x occupy positions 0 onwards
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchSuffixTree(byte[] x) {
+		Task1Info t1Info = new Task1Info();
+		int lo = lowerBound(x);
+
+		if (lo < upperBound(x))
+			t1Info.setPos(a.getSuffixArray()[lo]);
+		return t1Info;
+	}
+
+	/**
+	 * Search the suffix array representing string s for all occurrences
+	 * of target x.  Stores in Task2Info.positions a list of all
+	 * such occurrences, in lexicographic order of the suffixes starting
+	 * at them.  The list is empty if there are no occurrences of
+	 * x in s.
+	 * - assumes that characters of s and x occupy positions 0 onwards
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task2Info object
+	 */
+	public Task2Info allOccurrences(byte[] x) {
+		Task2Info t2Info = new Task2Info();
+		forEachOccurrence(x, t2Info);
+		return t2Info;
+	}
+
+	/**
+	 * Passes each occurrence of target x to a visitor, in lexicographic
+	 * order of the suffixes starting at them.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor
+	 */
+	public void forEachOccurrence(byte[] x, OccurrenceVisitor v) {
+		int [] sa = a.getSuffixArray();
+		int hi = upperBound(x);
+
+		for (int i = lowerBound(x); i < hi; i++)
+			if (!v.visit(sa[i]))
+				return;
+	}
+
+	/**
+	 * Finds one page of the occurrences of target x, which is a slice of
+	 * the interval of the suffix array whose suffixes have x as a prefix.
+	 * 
+	 * @param x the target string to search for
+	 * @param offset the number of occurrences to pass over
+	 * @param limit the maximum number of occurrences to return
+	 * 
+	 * @return the starting positions of the occurrences in the page
+	 */
+	public long[] allOccurrences(byte[] x, long offset, int limit) {
+		if (offset < 0 || limit < 0)
+			throw new IllegalArgumentException("offset and limit must not be negative");
+		int [] sa = a.getSuffixArray();
+		int lo = lowerBound(x), hi = upperBound(x);
+		int from = (int) Math.min(lo + offset, hi);
+		int to = (int) Math.min((long) from + limit, hi);
+		long [] page = new long[to - from];
+
+		for (int i = from; i < to; i++)
+			page[i - from] = sa[i];
+		return page;
+	}
+
+	/**
+	 * Counts the occurrences of target x, which is the width of the
+	 * interval of the suffix array whose suffixes have x as a prefix.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return the number of occurrences of x
+	 */
+	public long countOccurrences(byte[] x) {
+		return upperBound(x) - lowerBound(x);
+	}
+
+	/**
+	 * Searches for a target x and counts its occurrences, as in
+	 * SuffixTreeAppl.searchAndCount, from the one interval of the suffix
+	 * array whose suffixes have x as a prefix.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchAndCount(byte[] x) {
+		Task1Info t1Info = new Task1Info();
+		int lo = lowerBound(x), hi = upperBound(x);
+
+		if (lo < hi) {
+			t1Info.setPos(a.getSuffixArray()[lo]);
+			t1Info.setCount(hi - lo);
+		}
+		return t1Info;
+	}
+
+	/**
+	 * Finds ln, p1 and p2 as in SuffixTreeAppl.traverseForLrs; the longest
+	 * repeated substring is the longest common prefix of some pair of
+	 * suffixes that are adjacent in the suffix array.
+	 * 
+	 * @return a Task3Info object
+	 */
+	public Task3Info traverseForLrs () {
+		Task3Info t3Info = new Task3Info();
+		int [] sa = a.getSuffixArray();
+		int [] lcp = a.getLcp();
+
+		for (int i = 1; i < lcp.length; i++)
+			if (lcp[i] > t3Info.getLen()) {
+				t3Info.setLen(lcp[i]);
+				t3Info.setPos1(sa[i - 1]);
+				t3Info.setPos2(sa[i]);
+			}
+		return t3Info;
+	}
+
+	/**
+	 * Finds ln, p1 and p2 as in SuffixTreeAppl.traverseForLcs, for a
+	 * generalised suffix array of strings s1 (of length s1Length) and s2;
+	 * the longest common substring is the longest common prefix of some
+	 * pair of adjacent suffixes that start in different strings.
+	 * 
+	 * @param s1Length the length of s1
+	 * 
+	 * @return a Task4Info object
+	 */
+	public Task4Info traverseForLcs (int s1Length) {
+		Task4Info t4Result = new Task4Info();
+		int [] sa = a.getSuffixArray();
+		int [] lcp = a.getLcp();
+
+		for (int i = 1; i < lcp.length; i++) {
+			int p = sa[i - 1], q = sa[i];
+			if (lcp[i] > t4Result.getLen()
+					&& ((p < s1Length && q > s1Length) || (q < s1Length && p > s1Length))) {
+				t4Result.setLen(lcp[i]);
+				t4Result.setPos1(Math.min(p, q));
+				t4Result.setPos2(Math.max(p, q) - (s1Length + 1));
+			}
+		}
+		return t4Result;
+	}
+
+	/**
+	 * Finds the first index of the suffix array whose suffix is not
+	 * smaller than x.
+	 */
+	private int lowerBound(byte[] x) {
+		int [] sa = a.getSuffixArray();
+		int lo = 0, hi = sa.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(sa[mid], x) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Finds the first index of the suffix array whose suffix is greater
+	 * than x and does not have x as a prefix.
+	 */
+	private int upperBound(byte[] x) {
+		int [] sa = a.getSuffixArray();
+		int lo = 0, hi = sa.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(sa[mid], x) <= 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Compares the suffix starting at position p with x, considering only
+	 * the first x.length characters of the suffix; returns 0 if x is a
+	 * prefix of the suffix.  The termination character compares smaller
+	 * than every character.
+	 */
+	private int compare(int p, byte[] x) {
+		byte [] text = a.getString();
+		int end = text.length - 1;
+		for (int i = 0; i < x.length; i++) {
+			if (p + i >= end)
+				return -1;
+			int c = (text[p + i] & 0xff) - (x[i] & 0xff);
+			if (c != 0)
+				return c;
+		}
+		return 0;
+	}
+}
@@ -1,11 +1,34 @@
 package SuffixTreePackage;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * Class for construction and manipulation of suffix trees based on a list
  * of children at each node.
  * 
  * Includes naive O(n^2) suffix tree construction algorithm based on
- * repeated insertion of suffixes and node-splitting.
+ * repeated insertion of suffixes and node-splitting, and Ukkonen's O(n)
+ * construction algorithm (see UkkonenBuilder), selected by a BuildMethod.
+ * The tree may also be built in parallel from the suffix array and LCP
+ * array of the string, the subtrees below different nodes being built by
+ * separate tasks.  All produce the same tree, apart from the order of
+ * children and the positions chosen for the edge labels of branch nodes.
+ * 
+ * A generalised suffix tree may also be built over any number of
+ * documents.  The documents are laid out one after another in s, each
+ * followed by a virtual terminator: a position whose character is
+ * treated as distinct from every other, so that documents may contain
+ * any bytes.  Every position of s belongs to a document, identified by
+ * getDocumentId and getDocumentOffset; a tree for one string has a single
+ * document, and a tree for two strings has two.
+ * 
+ * The time taken by each construction algorithm and phase, and the work
+ * done in inserting suffixes, are recorded in Stats.
  * 
  * Modifies Ada implementation of naive suffix tree construction algorithm
  * due to Rob Irving, Jan 00.
@@ -18,6 +41,12 @@ package SuffixTreePackage;
 
 public class SuffixTree {
 
+	/** Strings shorter than this are built by Ukkonen's algorithm even if PARALLEL is chosen. */
+	static final int PARALLEL_THRESHOLD = 1 << 17;
+
+	/** Ranges of at most this many suffixes are built by a single task. */
+	static final int PARALLEL_GRAIN = 1 << 14;
+
 	/** Root node of the suffix tree. */
 	private SuffixTreeNode root;
 
@@ -27,24 +56,92 @@ public class SuffixTree {
 	/** Length of string corresponding to suffix tree (without termination character). */
 	private int stringLen;
 
+	/** Algorithm used to build the suffix tree. */
+	private BuildMethod method;
+
+	/** docStart[d] is the position in s at which document d starts; the last entry is s.length. */
+	private int [] docStart;
+
+	/** Positions of virtual terminators in s (null unless built over documents). */
+	private BitSet terminators;
+
+	/** Whether the leaf count of every node has been computed. */
+	private volatile boolean leafCountsDone;
+
 	/**
-	 * Builds the suffix tree for a given string.
+	 * Builds the suffix tree for a given string using the naive algorithm.
 	 * 
 	 * @param sInput the string whose suffix tree is to be built
 	 * - assumes that '$' does not occur as a character anywhere in sInput
 	 * - assumes that characters of sInput occupy positions 0 onwards
 	 */
 	public SuffixTree (byte [] sInput) {
+		this(sInput, BuildMethod.NAIVE);
+	}
+
+	/**
+	 * Builds the suffix tree for a given string.
+	 * 
+	 * @param sInput the string whose suffix tree is to be built
+	 * - assumes that '$' does not occur as a character anywhere in sInput
+	 * - assumes that characters of sInput occupy positions 0 onwards
+	 * @param m the construction algorithm to use
+	 */
+	public SuffixTree (byte [] sInput, BuildMethod m) {
+		this(sInput, sInput.length, m);
+	}
+
+	/**
+	 * Builds the suffix tree for the string held in the first len positions
+	 * of an array, which is copied.
+	 * 
+	 * @param sBuffer the array holding the string whose suffix tree is to be built
+	 * - assumes that '$' does not occur as a character anywhere in sBuffer[0..len-1]
+	 * @param len the length of the string
+	 * @param m the construction algorithm to use
+	 */
+	public SuffixTree (byte [] sBuffer, int len, BuildMethod m) {
+		this(sBuffer, len, m, false);
+	}
+
+	/**
+	 * Builds the suffix tree for the string held in the first len positions
+	 * of an array, optionally taking the array over as the string of the
+	 * suffix tree rather than copying it.  An array is taken over only if
+	 * it was allocated for the purpose, with exactly one more position
+	 * (see FileInput.readFile(int)): '$' is written to that position, and the
+	 * array must not be changed afterwards.
+	 * 
+	 * @param sBuffer the array holding the string whose suffix tree is to be built
+	 * - assumes that '$' does not occur as a character anywhere in sBuffer[0..len-1]
+	 * @param len the length of the string
+	 * @param m the construction algorithm to use
+	 * @param adopt true to take the array over, false to copy it
+	 * @throws IllegalArgumentException if the array is to be taken over but
+	 * its length is not len + 1
+	 */
+	public SuffixTree (byte [] sBuffer, int len, BuildMethod m, boolean adopt) {
 		root = new SuffixTreeNode(null, null, 0, 0, -1);  // create root node of suffix tree;
-		stringLen = sInput.length;
-		s = new byte[stringLen + 1]; // create longer byte array ready for termination character
-		System.arraycopy(sInput, 0, s, 0, stringLen);
+		method = m;
+		stringLen = len;
+		if (adopt) {
+			if (sBuffer.length != stringLen + 1)
+				throw new IllegalArgumentException("an adopted array must have exactly one position more than the string");
+			s = sBuffer;             // the buffer already has room for the termination character
+		}
+		else {
+			s = new byte[stringLen + 1]; // create longer byte array ready for termination character
+			System.arraycopy(sBuffer, 0, s, 0, stringLen);
+		}
 		s[stringLen] = (byte) '$';   // append termination character to original string
+		docStart = new int [] { 0, stringLen + 1 };
+		long start = Stats.start();
 		buildSuffixTree();           // build the suffix tree
+		Stats.stop(Stats.Timer.build(method), start);
 	}
 
 	/**
-	 * Builds a generalised suffix tree for two given strings.
+	 * Builds a generalised suffix tree for two given strings using the naive algorithm.
 	 * 
 	 * @param sInput1 the first string
 	 * @param sInput2 the second string
@@ -52,7 +149,21 @@ public class SuffixTree {
 	 * - assumes that characters of sInput1 and sInput2 occupy positions 0 onwards
 	 */
 	public SuffixTree (byte[] sInput1, byte[] sInput2) {
+		this(sInput1, sInput2, BuildMethod.NAIVE);
+	}
+
+	/**
+	 * Builds a generalised suffix tree for two given strings.
+	 * 
+	 * @param sInput1 the first string
+	 * @param sInput2 the second string
+	 * - assumes that '$' and '#' do not occur as a character anywhere in sInput1 or sInput2
+	 * - assumes that characters of sInput1 and sInput2 occupy positions 0 onwards
+	 * @param m the construction algorithm to use
+	 */
+	public SuffixTree (byte[] sInput1, byte[] sInput2, BuildMethod m) {
 		root = new SuffixTreeNode(null, null, 0, 0, -1);  // create root node of suffix tree;
+		method = m;
 		stringLen = sInput1.length + sInput2.length;
 		s = new byte[stringLen + 2]; // create longer byte array ready for termination characters
 		
@@ -61,100 +172,346 @@ public class SuffixTree {
 		
 		System.arraycopy(sInput2, 0, s, sInput1.length + 1, sInput2.length);
 		s[stringLen + 1] = (byte) '$';   // append termination character to original string
+		docStart = new int [] { 0, sInput1.length + 1, stringLen + 2 };
 		
+		long start = Stats.start();
 		buildGeneralisedTree( sInput1.length, sInput2.length );
+		Stats.stop(Stats.Timer.build(method), start);
+		start = Stats.start();
 		calcDecendantSuffix( root, sInput1.length );
+		Stats.stop(Stats.Timer.MARK_STRINGS, start);
 	}
 	
-	// For each node, finds the string to which it belongs (or both strings)
-	private void calcDecendantSuffix( SuffixTreeNode current, int len1 ){
-		SuffixTreeNode child = current.getChild();
-		SuffixTreeNode curr_child;
-		int suffix = current.getSuffix();
+	/**
+	 * Builds a generalised suffix tree for any number of documents, using
+	 * Ukkonen's algorithm.  Document d occupies positions getDocumentStart(d)
+	 * onwards of s, followed by a virtual terminator; the string s ends with
+	 * the terminator of the last document, at position stringLen.  Leaf edges
+	 * stop just before the terminator of their document, so the edge label of
+	 * a leaf for a suffix that ends at a branch node is empty.
+	 * 
+	 * @param docs the documents, which may contain any characters
+	 * @throws IllegalArgumentException if the documents are too long in total
+	 */
+	public SuffixTree (byte[][] docs) {
+		root = new SuffixTreeNode(null, null, 0, 0, -1);  // create root node of suffix tree;
+		method = BuildMethod.UKKONEN;
 		
-		if( child == null ){
-			if( suffix >= 1 && suffix <= len1 ){
-				current.setLeafNodeString1(true);
-				current.setLeafNodeNumString1(current.getSuffix());
-				//System.out.println("1 leaf");
-			}
-			
-			else if( suffix >= len1 + 2 && suffix <= stringLen + 1 ){
-				current.setLeafNodeString2(true);
-				current.setLeafNodeNumString2(current.getSuffix());
-				//System.out.println("2 leaf");
-			}
-			
-			return;
+		long total = docs.length;
+		for (byte [] doc : docs)
+			total += doc.length;
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("documents are too long to be indexed together");
+		
+		s = new byte[(int) total];
+		docStart = new int[docs.length + 1];
+		terminators = new BitSet(s.length);
+		int pos = 0;
+		for (int d = 0; d < docs.length; d++) {
+			docStart[d] = pos;
+			System.arraycopy(docs[d], 0, s, pos, docs[d].length);
+			pos += docs[d].length;
+			s[pos] = (byte) '$';   // placeholder; the terminator itself is virtual
+			terminators.set(pos++);
+		}
+		docStart[docs.length] = pos;
+		stringLen = s.length - 1;
+		
+		long start = Stats.start();
+		UkkonenBuilder<SuffixTreeNode> builder = new UkkonenBuilder<SuffixTreeNode>(new SuffixTreeNodeStore(root), s, stringLen, terminators);
+		for (int i = 0; i <= stringLen; i++) {
+			builder.extend(i);  // add character i of s to the tree
+			Stats.increment(Stats.Counter.POSITIONS_ADDED);
+		}
+		trimLeaves();
+		Stats.stop(Stats.Timer.BUILD_UKKONEN, start);
+	}
+	
+	/**
+	 * Cuts each leaf edge of a tree over documents short just before the
+	 * terminator of the document in which the edge starts.
+	 */
+	private void trimLeaves() {
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			SuffixTreeNode current = stack.pop();
+			if (current.getChild() == null && current != root)
+				current.setRightLabel(terminators.nextSetBit(current.getLeftLabel()) - 1);
+			for (SuffixTreeNode c = current.getChild(); c != null; c = c.getSibling())
+				stack.push(c);
 		}
+	}
+	
+	// For each node, finds the string to which it belongs (or both strings),
+	// visiting the nodes in reverse preorder so that every node is processed
+	// after all of its children; an explicit stack is used rather than
+	// recursion, as the tree of a repetitive string may be very deep
+	private void calcDecendantSuffix( SuffixTreeNode top, int len1 ){
+		ArrayList<SuffixTreeNode> order = preorder( top );
 		
-		// Check all children of the current node in order to determine the type of the
-		// current node
-		curr_child = child;
-		while( curr_child != null ){
-			calcDecendantSuffix( curr_child, len1 );
+		for( int k = order.size() - 1; k >= 0; k-- ){
+			SuffixTreeNode current = order.get(k);
+			SuffixTreeNode curr_child = current.getChild();
+			int suffix = current.getSuffix();
 			
-			if( !current.getLeafNodeString1() && curr_child.getLeafNodeString1() ){
-				current.setLeafNodeString1( true );
-				current.setLeafNodeNumString1( curr_child.getLeafNodeNumString1() );
-				//System.out.println("1 branch");
+			if( curr_child == null ){
+				// string 1 occupies positions 0..len1-1 and string 2 positions len1+1..stringLen
+				if( suffix >= 0 && suffix < len1 ){
+					current.setLeafNodeString1(true);
+					current.setLeafNodeNumString1(current.getSuffix());
+				}
+				
+				else if( suffix > len1 && suffix <= stringLen ){
+					current.setLeafNodeString2(true);
+					current.setLeafNodeNumString2(current.getSuffix());
+				}
+				
+				continue;
 			}
 			
-			if( !current.getLeafNodeString2() && curr_child.getLeafNodeString2() ){
-				current.setLeafNodeString2( true );
-				current.setLeafNodeNumString2( curr_child.getLeafNodeNumString2() );
-				//System.out.println("2 branch");
+			// Check all children of the current node in order to determine the type of the
+			// current node
+			while( curr_child != null ){
+				if( !current.getLeafNodeString1() && curr_child.getLeafNodeString1() ){
+					current.setLeafNodeString1( true );
+					current.setLeafNodeNumString1( curr_child.getLeafNodeNumString1() );
+				}
+				
+				if( !current.getLeafNodeString2() && curr_child.getLeafNodeString2() ){
+					current.setLeafNodeString2( true );
+					current.setLeafNodeNumString2( curr_child.getLeafNodeNumString2() );
+				}
+				
+				curr_child = curr_child.getSibling();
 			}
-			
-			curr_child = curr_child.getSibling();
 		}
 	}
 	
+	/**
+	 * Lists the nodes of the subtree rooted at a node in preorder, using an
+	 * explicit stack; in reverse, the list has every node after its children.
+	 */
+	private ArrayList<SuffixTreeNode> preorder( SuffixTreeNode top ){
+		ArrayList<SuffixTreeNode> order = new ArrayList<SuffixTreeNode>();
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		stack.push(top);
+		while (!stack.isEmpty()) {
+			SuffixTreeNode current = stack.pop();
+			order.add(current);
+			for (SuffixTreeNode c = current.getChild(); c != null; c = c.getSibling())
+				stack.push(c);
+		}
+		return order;
+	}
+	
 	/**
 	 * Builds the generalised suffix tree.
+	 * - throws IllegalArgumentException if either string contains a '$' or '#'
 	 */
 	private void buildGeneralisedTree(int len1, int len2){
+		// leaves built by Ukkonen's algorithm extend to the final '$'
+		UkkonenBuilder<SuffixTreeNode> builder = null;
+		if (method == BuildMethod.UKKONEN || (method == BuildMethod.PARALLEL && s.length < PARALLEL_THRESHOLD))
+			builder = new UkkonenBuilder<SuffixTreeNode>(new SuffixTreeNodeStore(root), s, stringLen + 1);
 		try {		
 			for (int i=0; i<= stringLen + 1; i++) {
-				// for large files, the following line may be useful for
-				// indicating the progress of the suffix tree construction
-				//if (i % 10000==0) System.out.println(i);
+				// the progress of the suffix tree construction may be
+				// followed through this counter (see Stats)
+				Stats.increment(Stats.Counter.POSITIONS_ADDED);
 
 				// raise an exception if the text file contained a '$' or '#'
 				if ( (s[i] == (byte) '#' && i != len1)
 						|| (s[i] == (byte) '$' && i < stringLen + 1)  )
 					throw new Exception();
-				else
+				else if (builder != null)
+					builder.extend(i);  // add character i of s to the tree
+				else if (method != BuildMethod.PARALLEL)
 					insert(i);  // insert suffix number i of z into tree
 			}
 		} 
 		catch (Exception e) {
-			System.out.println("Text file contains a $(or #) character!");
-			System.exit(-1);
+			throw new IllegalArgumentException("Text file contains a $(or #) character!");
 		}
+		if (method == BuildMethod.PARALLEL && builder == null)
+			buildInParallel();
 	}
 	
 	
 	/**
 	 * Builds the suffix tree.
+	 * - throws IllegalArgumentException if the string contains a '$'
 	 */
 	private void buildSuffixTree() {
+		UkkonenBuilder<SuffixTreeNode> builder = null;
+		if (method == BuildMethod.UKKONEN || (method == BuildMethod.PARALLEL && s.length < PARALLEL_THRESHOLD))
+			builder = new UkkonenBuilder<SuffixTreeNode>(new SuffixTreeNodeStore(root), s, stringLen);
 		try {		
 			for (int i=0; i<= stringLen; i++) {
-				// for large files, the following line may be useful for
-				// indicating the progress of the suffix tree construction
-				//if (i % 10000==0) System.out.println(i);
+				// the progress of the suffix tree construction may be
+				// followed through this counter (see Stats)
+				Stats.increment(Stats.Counter.POSITIONS_ADDED);
 
 				// raise an exception if the text file contained a '$'
 				if (s[i] == (byte) '$' && i < stringLen)
 					throw new Exception();
-				else
+				else if (builder != null)
+					builder.extend(i);  // add character i of s to the tree
+				else if (method != BuildMethod.PARALLEL)
 					insert(i);  // insert suffix number i of z into tree
 			}
 		} 
 		catch (Exception e) {
-			System.out.println("Text file contains a $ character!");
-			System.exit(-1);
+			throw new IllegalArgumentException("Text file contains a $ character!");
+		}
+		if (method == BuildMethod.PARALLEL && builder == null)
+			buildInParallel();
+	}
+
+	/**
+	 * Builds the suffix tree from the suffix array and LCP array of s.  The
+	 * tree is the tree of LCP intervals: the suffixes below a node at string
+	 * depth d form a range of the suffix array, whose LCPs are all at least
+	 * d, and which is split into the ranges of the children wherever the LCP
+	 * is exactly d.  Ranges are built by separate tasks on the threads of
+	 * the common ForkJoinPool (see IntervalTask), each in time linear in its
+	 * length, so the whole tree is built in linear time.  Every leaf has the
+	 * right label stringLen, as in the naive algorithm.
+	 */
+	private void buildInParallel() {
+		long phase = Stats.start();
+		int [] sa = SuffixArray.suffixArray(s);
+		int [] lcp = SuffixArray.lcpArray(s, sa);
+		Stats.stop(Stats.Timer.PARALLEL_SORT, phase);
+
+		phase = Stats.start();
+		ForkJoinPool.commonPool().invoke(new IntervalTask(sa, lcp, root, 0, s.length, 0));
+		Stats.stop(Stats.Timer.PARALLEL_SUBTREES, phase);
+	}
+
+	/**
+	 * Task building the subtree below a node from the range of the suffix
+	 * array below it.  A range of more than PARALLEL_GRAIN suffixes is split
+	 * into the ranges of the children of the node, which are built by tasks
+	 * of their own, unless one child has nearly all of the suffixes (as
+	 * in a highly repetitive string, whose tree is deep and narrow), when
+	 * splitting would gain nothing and the whole range is built by this task.
+	 */
+	private class IntervalTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private int [] sa;
+		private int [] lcp;
+		private SuffixTreeNode node;
+		private int from;
+		private int to;
+		private int depth;
+
+		IntervalTask(int [] saIn, int [] lcpIn, SuffixTreeNode nodeIn, int fromIn, int toIn, int depthIn) {
+			sa = saIn;
+			lcp = lcpIn;
+			node = nodeIn;
+			from = fromIn;
+			to = toIn;
+			depth = depthIn;
+		}
+
+		protected void compute() {
+			int size = to - from;
+			if (size <= PARALLEL_GRAIN || largestChild() > size - size / 8) {
+				buildInterval(sa, lcp, node, from, to, depth);
+				return;
+			}
+
+			// create the children, forking a task for each that is not a leaf
+			ArrayList<IntervalTask> tasks = new ArrayList<IntervalTask>();
+			int first = from, min = Integer.MAX_VALUE;
+			for (int k = from + 1; k <= to; k++) {
+				if (k < to && lcp[k] > depth) {
+					min = Math.min(min, lcp[k]);
+					continue;
+				}
+				int p = sa[first];
+				if (k - first == 1)
+					node.linkChild(s, new SuffixTreeNode(null, null, p + depth, stringLen, p));
+				else {
+					SuffixTreeNode c = new SuffixTreeNode(null, null, p + depth, p + min - 1, -1);
+					node.linkChild(s, c);
+					tasks.add(new IntervalTask(sa, lcp, c, first, k, min));
+				}
+				first = k;
+				min = Integer.MAX_VALUE;
+			}
+			invokeAll(tasks);
+		}
+
+		/**
+		 * Gets the number of suffixes in the range of the largest child.
+		 */
+		private int largestChild() {
+			int largest = 0, first = from;
+			for (int k = from + 1; k <= to; k++)
+				if (k == to || lcp[k] == depth) {
+					largest = Math.max(largest, k - first);
+					first = k;
+				}
+			return largest;
+		}
+	}
+
+	/**
+	 * Builds the subtree below a node from the range of the suffix array
+	 * below it, by a single pass over the range.  The nodes on the path from
+	 * the node to the leaf last added are held on a stack with their string
+	 * depths; each suffix leaves that path at the depth given by its LCP
+	 * with the suffix before, the edge there being split if it has no node.
+	 * 
+	 * @param sa the suffix array of s
+	 * @param lcp the LCP array of s
+	 * @param top the node, which has no children
+	 * @param from the start of the range of suffixes below top
+	 * @param to the end of the range (exclusive)
+	 * @param depth the string depth of top
+	 */
+	private void buildInterval(int [] sa, int [] lcp, SuffixTreeNode top, int from, int to, int depth) {
+		int n = s.length;
+		SuffixTreeNode [] path = new SuffixTreeNode[16];
+		int [] pathDepth = new int[16];
+		int size = 0;
+		path[size] = top;
+		pathDepth[size++] = depth;
+
+		for (int k = from; k < to; k++) {
+			int l = k == from ? depth : lcp[k];
+			SuffixTreeNode last = null;
+			while (pathDepth[size - 1] > l)
+				last = path[--size];
+			SuffixTreeNode parent = path[size - 1];
+
+			if (pathDepth[size - 1] < l) {
+				// the suffix leaves the edge above last part way down: split it
+				int left = last.getLeftLabel(), mid = left + l - pathDepth[size - 1];
+				SuffixTreeNode split = new SuffixTreeNode(null, last.getSibling(), left, mid - 1, -1);
+				parent.replaceChild(s, last, split);
+				last.setLeftLabel(mid);
+				last.setSibling(null);
+				split.linkChild(s, last);
+				parent = split;
+				path[size] = split;
+				pathDepth[size++] = l;
+			}
+
+			// the leaf is deeper than any LCP, so the next suffix leaves the path above it
+			int p = sa[k];
+			SuffixTreeNode leaf = new SuffixTreeNode(null, null, p + l, stringLen, p);
+			parent.linkChild(s, leaf);
+			if (size + 1 > path.length) {
+				path = Arrays.copyOf(path, 2 * path.length);
+				pathDepth = Arrays.copyOf(pathDepth, 2 * pathDepth.length);
+			}
+			path[size] = leaf;
+			pathDepth[size++] = n - p;
 		}
 	}
 
@@ -173,19 +530,43 @@ public class SuffixTree {
 
 		SuffixTreeNode next = nodeIn;
 		SuffixTreeNode nodeOut = null;
+		int hops = 0;
 
 		while (next != null) {
-			if (next.getLeftLabel() < stringLen && s[next.getLeftLabel()] == ch)
+			if (next.getLeftLabel() < stringLen && s[next.getLeftLabel()] == ch
+					&& (terminators == null || !terminators.get(next.getLeftLabel())))
 			{
 				nodeOut = next;
 				next = null;
 			}
-			else
+			else {
 				next = next.getSibling();
+				hops++;
+			}
 		}
+		Stats.add(Stats.Counter.SIBLING_HOPS, hops);
 		return nodeOut;  // return matching node if successful, or null otherwise
 	}
 
+	/**
+	 * Given node nodeIn of suffix tree and character ch, search the children
+	 * of nodeIn for a node whose left label x satisfies ch == s[x], as in
+	 * searchList(nodeIn.getChild(), ch).  Uses the index of children of
+	 * nodeIn if it has one, rather than scanning the list of children.
+	 * - Assumes that characters of s occupy positions 0 onwards
+	 * 
+	 * @param nodeIn a node of the suffix tree
+	 * @param ch the character to match
+	 * 
+	 * @return the matching suffix tree node (null if none exists)
+	 */
+	public SuffixTreeNode searchChild (SuffixTreeNode nodeIn, byte ch) {
+		SuffixTreeNode nodeOut = nodeIn.findChild(s, terminators, ch);
+		if (nodeOut != null && nodeOut.getLeftLabel() >= stringLen)
+			return null;
+		return nodeOut;
+	}
+
 	/**
 	 * Inserts suffix number i of s into suffix tree.
      * - assumes that characters of s occupy positions 0 onwards
@@ -201,12 +582,12 @@ public class SuffixTree {
 
 		while (true) {
 			// search for child of current with left label x such that s[x]==s[pos]
-			next = searchList(current.getChild(), s[pos]);
+			next = current.findChild(s, s[pos]);
 
 			if (next == null) {
 				// current node has no such child, so add new one corresponding to
 				// positions pos onwards of s
-				current.addChild(pos, stringLen, i);
+				current.linkChild(s, new SuffixTreeNode(null, null, pos, stringLen, i));
 				break;
 			}
 			else {
@@ -223,6 +604,7 @@ public class SuffixTree {
 					else
 						break;
 				}
+				Stats.add(Stats.Counter.CHARACTERS_MATCHED, j - next.getLeftLabel());
 				if (j > next.getRightLabel()) {
 					// succeeded in matching whole segment, so go further down tree
 					pos = k;
@@ -240,10 +622,12 @@ public class SuffixTree {
 					SuffixTreeNode n1 = new SuffixTreeNode(null, null, k, stringLen, i);
 					SuffixTreeNode n2 = new SuffixTreeNode(next.getChild(), n1, 
 							                               j, next.getRightLabel(), next.getSuffix());
+					n2.setChildIndex(next.getChildIndex());  // n2 takes over next's children
                     // now update next's right label, list of children and suffix number
 					next.setRightLabel(j-1);
 					next.setChild(n2);
 					next.setSuffix(-1); // next is now an internal node
+					Stats.increment(Stats.Counter.SPLITS);
 					break;
 				}
 			}
@@ -291,4 +675,102 @@ public class SuffixTree {
 	 * @param len the new length of the string represented by the suffix tree
 	 */
 	public void setStringLen(int len) { stringLen = len; }
+
+	/**
+	 * Gets the algorithm used to build the suffix tree.
+	 * 
+	 * @return the construction algorithm
+	 */
+	public BuildMethod getBuildMethod() { return method; }
+
+	/**
+	 * Gets the number of documents indexed: 1 for the suffix tree of one
+	 * string and 2 for the generalised suffix tree of two strings.
+	 * 
+	 * @return the number of documents
+	 */
+	public int getDocumentCount() { return docStart.length - 1; }
+
+	/**
+	 * Gets the position in s at which a document starts.
+	 * 
+	 * @param d the number of the document (counting from 0)
+	 * @return the starting position of document d
+	 */
+	public int getDocumentStart(int d) { return docStart[d]; }
+
+	/**
+	 * Gets the length of a document, without its terminator.
+	 * 
+	 * @param d the number of the document (counting from 0)
+	 * @return the length of document d
+	 */
+	public int getDocumentLength(int d) { return docStart[d + 1] - docStart[d] - 1; }
+
+	/**
+	 * Gets the number of the document containing a position of s, such as
+	 * a position reported by a search.
+	 * 
+	 * @param pos a position in s
+	 * @return the number of the document containing pos (counting from 0)
+	 */
+	public int getDocumentId(int pos) {
+		int d = Arrays.binarySearch(docStart, pos);
+		return d >= 0 ? d : -d - 2;
+	}
+
+	/**
+	 * Gets the offset of a position of s from the start of its document.
+	 * 
+	 * @param pos a position in s
+	 * @return the offset of pos within the document containing it
+	 */
+	public int getDocumentOffset(int pos) { return pos - docStart[getDocumentId(pos)]; }
+
+	/**
+	 * Is a position of s the terminator of a document?
+	 * 
+	 * @param pos a position in s
+	 * @return true if pos holds the terminator of a document
+	 */
+	public boolean isTerminator(int pos) {
+		if (terminators != null)
+			return terminators.get(pos);
+		return pos == docStart[getDocumentId(pos) + 1] - 1;
+	}
+
+	/**
+	 * Gets the number of leaves in the subtree rooted at a node, which is
+	 * the number of occurrences in s of the path label of the node.  The
+	 * leaf counts of all nodes are computed together on the first call.
+	 * 
+	 * @param node a node of the suffix tree
+	 * @return the number of leaves in the subtree rooted at node
+	 */
+	public int getLeafCount(SuffixTreeNode node) {
+		if (!leafCountsDone)
+			calcLeafCounts();
+		return node.getLeafCount();
+	}
+
+	/**
+	 * Computes the leaf count of every node, visiting the nodes in reverse
+	 * preorder so that every node is processed after all of its children.
+	 */
+	private synchronized void calcLeafCounts() {
+		if (leafCountsDone)
+			return;
+		long start = Stats.start();
+		ArrayList<SuffixTreeNode> order = preorder(root);
+
+		for (int k = order.size() - 1; k >= 0; k--) {
+			SuffixTreeNode current = order.get(k);
+			int count = current.getChild() == null ? 1 : 0;
+			for (SuffixTreeNode c = current.getChild(); c != null; c = c.getSibling())
+				count += c.getLeafCount();
+			current.setLeafCount(count);
+		}
+		leafCountsDone = true;
+		Stats.stop(Stats.Timer.LEAF_COUNTS, start);
+	}
 }
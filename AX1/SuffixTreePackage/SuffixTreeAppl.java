@@ -1,19 +1,37 @@
 package SuffixTreePackage;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
- * Class with methods for carrying out applications of suffix trees
+ * Class with methods for carrying out applications of suffix trees.
+ * The time taken by each operation is recorded in Stats.
+ * 
  * David Manlove, Jan 03.  Modified by David Manlove, Jan 07 and Jan 09.
  */
 
-public class SuffixTreeAppl {
+public class SuffixTreeAppl implements RepeatIndex, CommonSubstringIndex {
 
 	/** The suffix tree */
 	private SuffixTree t;
 	private boolean debug = false;
 
+	/** Depth of the tree down to which the parallel traversals fork a task per node. */
+	static final int PARALLEL_DEPTH = 2;
+
+	/** Number of bytes read from a stream at a time by streamForLcs. */
+	static final int STREAM_BUFFER = 1 << 16;
+
 	/**
 	 * Default constructor.
 	 */
@@ -42,6 +60,17 @@ public class SuffixTreeAppl {
 	 * @return a Task1Info object
 	 */
 	public Task1Info searchSuffixTree(byte[] x) {
+		long start = Stats.start();
+		Task1Info t1Info = search( x );
+		Stats.stop( Stats.Timer.SEARCH, start );
+		return t1Info;
+	}
+
+	/**
+	 * Searches for a target x as in searchSuffixTree, without timing the
+	 * search, for the operations that begin with one.
+	 */
+	private Task1Info search(byte[] x) {
 		Task1Info t1Info = new Task1Info();
 		
 		int pos = 0, i, j;
@@ -52,7 +81,7 @@ public class SuffixTreeAppl {
 
 		while (true) {
 			// search for child of current with left label equal to x[pos]
-			next = t.searchList(current.getChild(), x[pos]);
+			next = t.searchChild(current, x[pos]);
 
 			if (next == null) 
 				break;
@@ -94,9 +123,9 @@ public class SuffixTreeAppl {
 
 	/**
 	 * Search suffix tree t representing string s for all occurrences of target x.
-	 * Stores in Task2Info.positions a linked list of all such occurrences.
+	 * Stores in Task2Info.positions a list of all such occurrences.
 	 * Each occurrence is specified by a starting position index in s
-	 * (as in searchSuffixTree above).  The linked list is empty if there
+	 * (as in searchSuffixTree above).  The list is empty if there
 	 * are no occurrences of x in s.
 	 * - assumes that characters of s and x occupy positions 0 onwards
 	 * 
@@ -105,35 +134,278 @@ public class SuffixTreeAppl {
 	 * @return a Task2Info object
 	 */
 	public Task2Info allOccurrences(byte[] x) {
+		Task2Info t2Info = new Task2Info();
+		forEachOccurrence(x, t2Info);
+		return t2Info;
+	}
+
+	/**
+	 * Passes each occurrence of target x in s to a visitor, by a depth-first
+	 * traversal of the subtree below the node at which x is matched.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor
+	 */
+	public void forEachOccurrence(byte[] x, OccurrenceVisitor v) {
+		long start = Stats.start();
+		visitOccurrences(x, v, null);
+		Stats.stop(Stats.Timer.OCCURRENCES, start);
+	}
+
+	/**
+	 * Finds one page of the occurrences of target x in s.  Subtrees lying
+	 * wholly before the page are passed over using their leaf counts.
+	 * 
+	 * @param x the target string to search for
+	 * @param offset the number of occurrences to pass over
+	 * @param limit the maximum number of occurrences to return
+	 * 
+	 * @return the starting positions of the occurrences in the page
+	 */
+	public long[] allOccurrences(byte[] x, long offset, int limit) {
+		long start = Stats.start();
+		OccurrencePage page = new OccurrencePage(offset, limit);
+		if( !page.isFull() )   // a page of no occurrences needs no search
+			visitOccurrences(x, page, page);
+		Stats.stop(Stats.Timer.OCCURRENCES, start);
+		return page.toArray();
+	}
+
+	/**
+	 * Traverses the subtree below the node at which x is matched, passing
+	 * the suffix of each leaf to v; if page is not null, subtrees with no
+	 * more leaves than the page still has to pass over are skipped whole.
+	 */
+	private void visitOccurrences(byte[] x, OccurrenceVisitor v, OccurrencePage page) {
 		
 		// Try to find the search string and return the last matched node
-		Task1Info t1Info = searchSuffixTree(x);
-		Task2Info t2Info = new Task2Info();
-		Queue<SuffixTreeNode> q = new LinkedList<SuffixTreeNode>();
-		SuffixTreeNode current, child, sibling;
+		Task1Info t1Info = search(x);
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		SuffixTreeNode current, child;
 		
 		// If nothing was found, end the search
 		if( t1Info.getPos() < 0 )
-			return t2Info;
+			return;
 		
-		q.add( t1Info.getMatchNode().getChild() );
+		stack.push( t1Info.getMatchNode() );
 		
 		// Traverse the sub-tree of the last matched node
-		while( !q.isEmpty() ){
-			current = q.poll();
+		while( !stack.isEmpty() ){
+			current = stack.pop();
 			child = current.getChild();
-			sibling = current.getSibling();
 			
-			// If it is a leaf, add its suffix to the list
-			if( child == null )
-				t2Info.addEntry( current.getSuffix() );
+			if( page != null && page.getSkip() > 0 && t.getLeafCount(current) <= page.getSkip() )
+				page.skipped( t.getLeafCount(current) );
+			// If it is a leaf, pass its suffix to the visitor
+			else if( child == null ){
+				if( !v.visit( current.getSuffix() ) )
+					return;
+			}
 			else
-				q.add(child);
+				for( ; child != null; child = child.getSibling() )
+					stack.push(child);
+		}
+	}
+
+	/**
+	 * Finds the documents in which target x occurs, for a suffix tree built
+	 * over documents (see SuffixTree(byte[][])).
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return the numbers of the documents containing x, in increasing order
+	 */
+	public int[] documentsContaining(byte[] x) {
+		long start = Stats.start();
+		final BitSet docs = new BitSet(t.getDocumentCount());
+		visitOccurrences(x, new OccurrenceVisitor() {
+			public boolean visit(long pos) {
+				docs.set(t.getDocumentId((int) pos));
+				return true;
+			}
+		}, null);
+		Stats.stop(Stats.Timer.DOCUMENTS, start);
+		return docs.stream().toArray();
+	}
+
+	/**
+	 * Counts the occurrences of target x in the string s represented by
+	 * suffix tree t, in time proportional to the length of x: the count
+	 * is the number of leaves below the node at which x is matched.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return the number of occurrences of x
+	 */
+	public long countOccurrences(byte[] x) {
+		long start = Stats.start();
+		Task1Info t1Info = search(x);
+		int count = t1Info.getPos() < 0 ? 0 : t.getLeafCount( t1Info.getMatchNode() );
+		Stats.stop( Stats.Timer.COUNT, start );
+		return count;
+	}
+
+	/**
+	 * Searches for a target x as in searchSuffixTree, and counts its
+	 * occurrences as in countOccurrences from the node at which x is matched.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchAndCount(byte[] x) {
+		long start = Stats.start();
+		Task1Info t1Info = search(x);
+		if (t1Info.getPos() >= 0)
+			t1Info.setCount( t.getLeafCount( t1Info.getMatchNode() ) );
+		Stats.stop( Stats.Timer.COUNT, start );
+		return t1Info;
+	}
+
+	/**
+	 * Finds the starting positions of all substrings of s within edit
+	 * distance k of target x (see searchApproximate below).
+	 * 
+	 * @param x the target string to search for
+	 * @param k the greatest number of differences allowed
+	 * 
+	 * @return the starting positions, in increasing order
+	 */
+	public int[] searchApproximate(byte[] x, int k) {
+		return searchApproximate( x, k, DistanceMeasure.EDIT );
+	}
+
+	/**
+	 * Finds the starting positions of all substrings of s within distance
+	 * k of target x: under Hamming distance, those of the same length as x
+	 * differing from it in at most k positions; under edit distance, those
+	 * that at most k insertions, deletions and substitutions turn into x.
+	 * 
+	 * The tree is traversed depth-first, computing one row of the dynamic
+	 * programming table per character of a path label, so that a prefix
+	 * shared by many suffixes is compared with x only once.  Rows are kept
+	 * by depth, so returning to a branch node costs nothing.  A subtree is
+	 * abandoned once no prefix of x is within distance k of its path label
+	 * and reported whole once x is.  Substrings never span a terminator.
+	 * 
+	 * @param x the target string to search for
+	 * @param k the greatest distance allowed
+	 * @param measure the distance to use
+	 * 
+	 * @return the starting positions, in increasing order
+	 */
+	public int[] searchApproximate(byte[] x, int k, DistanceMeasure measure) {
+		IntList found = new IntList();
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		IntList depths = new IntList();
+		byte[] text = t.getString();
+		boolean edit = measure == DistanceMeasure.EDIT;
+		int m = x.length;
+		
+		if( k < 0 )
+			return found.toArray();
+		long start = Stats.start();
+		
+		/* rows[d] is the row for a path label of length d: under edit distance
+		 * rows[d][i] is the distance of x[0..i-1] from the label, and under
+		 * Hamming distance rows[d][0] is the number of mismatches with x[0..d-1] */
+		int[][] rows = new int[(edit ? m + k : m) + 1][edit ? m + 1 : 1];
+		for( int i = 0; edit && i <= m; i++ )
+			rows[0][i] = i;
+		
+		if( edit ? m <= k : m == 0 )
+			collectLeaves( t.getRoot(), found );
+		else
+			pushChildren( t.getRoot(), 0, stack, depths );
+		
+		while( !stack.isEmpty() ){
+			SuffixTreeNode current = stack.pop();
+			int d = depths.removeLast();
+			int status = APPROX_EXTENDED;
+			
+			// extend the path label along the edge above current
+			for( int j = current.getLeftLabel(); j <= current.getRightLabel() && status == APPROX_EXTENDED; j++ ){
+				if( t.isTerminator(j) )
+					status = APPROX_PRUNED;
+				else
+					status = extendRow( rows, d++, text[j], x, k, edit );
+			}
 			
-			if( sibling != null )
-				q.add(sibling);
+			if( status == APPROX_MATCHED )
+				collectLeaves( current, found );
+			else if( status == APPROX_EXTENDED )
+				pushChildren( current, d, stack, depths );
+		}
+		
+		int[] positions = found.toArray();
+		Arrays.sort( positions );
+		Stats.stop( Stats.Timer.APPROXIMATE, start );
+		return positions;
+	}
+
+	/** Results of extendRow. */
+	private static final int APPROX_EXTENDED = 0;
+	private static final int APPROX_MATCHED = 1;
+	private static final int APPROX_PRUNED = 2;
+
+	/**
+	 * Computes rows[d+1] from rows[d] for a path label extended by c, and
+	 * returns APPROX_MATCHED if x is within distance k of the new label,
+	 * APPROX_PRUNED if no longer label can be, and APPROX_EXTENDED otherwise.
+	 */
+	private static int extendRow( int[][] rows, int d, byte c, byte[] x, int k, boolean edit ){
+		int[] prev = rows[d], row = rows[d + 1];
+		int m = x.length;
+		
+		if( !edit ){
+			row[0] = prev[0] + (x[d] == c ? 0 : 1);
+			if( row[0] > k )
+				return APPROX_PRUNED;
+			return d + 1 == m ? APPROX_MATCHED : APPROX_EXTENDED;
+		}
+		
+		int min = row[0] = d + 1;
+		for( int i = 1; i <= m; i++ ){
+			int best = prev[i - 1] + (x[i - 1] == c ? 0 : 1);
+			best = Math.min( best, prev[i] + 1 );
+			best = Math.min( best, row[i - 1] + 1 );
+			row[i] = best;
+			min = Math.min( min, best );
+		}
+		if( row[m] <= k )
+			return APPROX_MATCHED;
+		// a label longer than m + k is at distance more than k from every prefix of x
+		return min > k || d + 1 == rows.length - 1 ? APPROX_PRUNED : APPROX_EXTENDED;
+	}
+
+	/**
+	 * Pushes the children of a node onto a stack, with the length d of its
+	 * path label for each.
+	 */
+	private void pushChildren( SuffixTreeNode node, int d, ArrayDeque<SuffixTreeNode> stack, IntList depths ){
+		for( SuffixTreeNode child = node.getChild(); child != null; child = child.getSibling() ){
+			stack.push( child );
+			depths.add( d );
+		}
+	}
+
+	/**
+	 * Adds the suffix of each leaf in the subtree rooted at a node to a list,
+	 * leaving out the suffixes that start at a terminator.
+	 */
+	private void collectLeaves( SuffixTreeNode top, IntList found ){
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		stack.push( top );
+		while( !stack.isEmpty() ){
+			SuffixTreeNode current = stack.pop();
+			if( current.getChild() == null ){
+				if( !t.isTerminator( current.getSuffix() ) )
+					found.add( current.getSuffix() );
+			}
+			else
+				for( SuffixTreeNode child = current.getChild(); child != null; child = child.getSibling() )
+					stack.push( child );
 		}
-		return t2Info; // replace with your code!
 	}
 
 	/**
@@ -144,39 +416,267 @@ public class SuffixTreeAppl {
 	 * - assumes that characters of s occupy positions 0 onwards
 	 * so that p1 and p2 count from 0
 	 * 
+	 * Of the longest repeated substrings found at leaves, the one with the
+	 * smallest p1 is chosen, so that the result does not depend on the
+	 * order in which the tree is traversed.
+	 * 
 	 * @return a Task3Info object
 	 */
 	public Task3Info traverseForLrs () {
+		long start = Stats.start();
 		Task3Info t3Info = new Task3Info();
-		Queue<SuffixTreeNode> q = new LinkedList<SuffixTreeNode>();
-		SuffixTreeNode current, child, sibling;
+		getLrs( t3Info, t.getRoot() );
+		Stats.stop( Stats.Timer.LRS, start );
+		return t3Info;
+	}
+
+	/**
+	 * Finds a longest repeated substring as in traverseForLrs, with the
+	 * subtrees of the root's children and grandchildren traversed by
+	 * separate tasks of a ForkJoinPool.  The result is the same as that
+	 * of traverseForLrs.
+	 * 
+	 * @param pool the pool whose threads carry out the traversal
+	 * 
+	 * @return a Task3Info object
+	 */
+	public Task3Info traverseForLrs (ForkJoinPool pool) {
+		long start = Stats.start();
+		Task3Info t3Info = pool.invoke( new LrsTask(t.getRoot(), 0) );
+		Stats.stop( Stats.Timer.LRS, start );
+		return t3Info;
+	}
+
+	/**
+	 * Traverses the subtree rooted at top, updating t3Info with each leaf
+	 * below top that has a sibling.
+	 */
+	private void getLrs( Task3Info t3Info, SuffixTreeNode top ){
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		SuffixTreeNode current, child;
 		
-		q.add( t.getRoot() );
+		stack.push( top );
 		
-		// Traverse the whole tree
-		while( !q.isEmpty() ){
-			current = q.poll();
-			child = current.getChild();
-			sibling = current.getSibling();
-			
-			// Check if it is a leaf-node
-			if( child == null ){
-				
-				// Check if the new length is better than the max length
-				int prefix_len = current.getLeftLabel() - current.getSuffix();
-				if( sibling != null && prefix_len > t3Info.getLen() ){
-					t3Info.setLen( prefix_len );
-					t3Info.setPos1( current.getSuffix() );
-					t3Info.setPos2( sibling.getSuffix() );
+		// Traverse the whole subtree
+		while( !stack.isEmpty() ){
+			current = stack.pop();
+			
+			for( child = current.getChild(); child != null; child = child.getSibling() ){
+				// Check if it is a leaf-node
+				if( child.getChild() == null )
+					checkLrs( t3Info, child );
+				else
+					stack.push(child);
+			}
+		}
+	}
+
+	/**
+	 * Updates t3Info if a leaf with a sibling gives a longer repeated
+	 * substring, or one as long that starts earlier: the path label of its
+	 * parent, which also occurs at a leaf below the sibling.
+	 */
+	private void checkLrs( Task3Info t3Info, SuffixTreeNode leaf ){
+		SuffixTreeNode sibling = leaf.getSibling();
+		int prefix_len = leaf.getLeftLabel() - leaf.getSuffix();
+		
+		if( sibling != null && (prefix_len > t3Info.getLen()
+				|| (prefix_len == t3Info.getLen() && prefix_len > 0 && leaf.getSuffix() < t3Info.getPos1())) ){
+			t3Info.setLen( prefix_len );
+			t3Info.setPos1( leaf.getSuffix() );
+			t3Info.setPos2( firstLeaf(sibling) );
+		}
+	}
+
+	/**
+	 * Finds the suffix number of some leaf in the subtree rooted at a node.
+	 */
+	private int firstLeaf( SuffixTreeNode node ){
+		while( node.getChild() != null )
+			node = node.getChild();
+		return node.getSuffix();
+	}
+
+	/**
+	 * Task finding a longest repeated substring below a node, which forks a
+	 * task for each branch child while above PARALLEL_DEPTH.
+	 */
+	private class LrsTask extends RecursiveTask<Task3Info> {
+
+		private static final long serialVersionUID = 1L;
+
+		private SuffixTreeNode node;
+		private int depth;
+
+		LrsTask( SuffixTreeNode nodeIn, int depthIn ){
+			node = nodeIn;
+			depth = depthIn;
+		}
+
+		protected Task3Info compute(){
+			Task3Info best = new Task3Info();
+			if( depth >= PARALLEL_DEPTH ){
+				getLrs( best, node );
+				return best;
+			}
+			
+			List<LrsTask> tasks = new ArrayList<LrsTask>();
+			for( SuffixTreeNode child = node.getChild(); child != null; child = child.getSibling() ){
+				if( child.getChild() == null )
+					checkLrs( best, child );
+				else
+					tasks.add( new LrsTask(child, depth + 1) );
+			}
+			invokeAll( tasks );
+			
+			// keep the best candidate, by the same rule as checkLrs
+			for( LrsTask task : tasks ){
+				Task3Info r = task.join();
+				if( r.getLen() > best.getLen()
+						|| (r.getLen() == best.getLen() && r.getLen() > 0 && r.getPos1() < best.getPos1()) )
+					best = r;
+			}
+			return best;
+		}
+	}
+
+	/**
+	 * Finds the k longest maximal repeats of s, longest first (ties in
+	 * order of position).  A maximal repeat is a substring occurring at
+	 * least twice whose occurrences cannot all be extended by the same
+	 * character to the left or to the right; every other repeated substring
+	 * lies within one, so that listing all repeats would mostly list the
+	 * suffixes of the longest.  The tree is traversed once, the best k
+	 * repeats so far being kept in a heap of size k.
+	 * 
+	 * @param k the number of repeats to find
+	 * 
+	 * @return a list of at most k repeats
+	 */
+	public List<RepeatInfo> longestRepeats( int k ){
+		long start = Stats.start();
+		List<RepeatInfo> repeats = findRepeats( 1, 2, k );
+		Stats.stop( Stats.Timer.REPEATS, start );
+		return repeats;
+	}
+
+	/**
+	 * Finds all maximal repeats of s (see longestRepeats) of at least a
+	 * given length and occurring at least a given number of times, longest
+	 * first (ties in order of position).
+	 * 
+	 * @param minLength the least length of repeat to find
+	 * @param minCount the least number of occurrences of repeat to find
+	 * 
+	 * @return a list of the repeats
+	 */
+	public List<RepeatInfo> maximalRepeats( int minLength, int minCount ){
+		long start = Stats.start();
+		List<RepeatInfo> repeats = findRepeats( Math.max(minLength, 1), Math.max(minCount, 2), Integer.MAX_VALUE );
+		Stats.stop( Stats.Timer.REPEATS, start );
+		return repeats;
+	}
+
+	/** Orders repeats from worst to best: shorter first, then later first. */
+	private static final Comparator<RepeatInfo> REPEAT_ORDER = new Comparator<RepeatInfo>() {
+		public int compare( RepeatInfo a, RepeatInfo b ){
+			if( a.getLen() != b.getLen() )
+				return Integer.compare( a.getLen(), b.getLen() );
+			return Integer.compare( b.getPos(), a.getPos() );
+		}
+	};
+
+	/** Value of RepeatFrame.left once occurrences are preceded by different characters. */
+	private static final int LEFT_DIVERSE = -2;
+
+	/**
+	 * Information gathered about a branch node during findRepeats: its
+	 * path length, the next child to visit, the number and first position
+	 * of its leaves, and the character preceding all of their suffixes
+	 * (-1 if none seen yet, LEFT_DIVERSE if they differ).
+	 */
+	private static class RepeatFrame {
+		SuffixTreeNode next;
+		int depth;
+		int count;
+		int pos;
+		int left;
+
+		void init( SuffixTreeNode node, int d ){
+			next = node.getChild();
+			depth = d;
+			count = 0;
+			pos = Integer.MAX_VALUE;
+			left = -1;
+		}
+
+		void add( int c, int p, int l ){
+			count += c;
+			pos = Math.min( pos, p );
+			left = left == -1 ? l : left == l ? left : LEFT_DIVERSE;
+		}
+	}
+
+	/**
+	 * Traverses the tree once in post-order, with an explicit stack of
+	 * frames reused from level to level, keeping the best k maximal repeats
+	 * of at least the given length and number of occurrences.  A branch
+	 * node is a maximal repeat exactly when its suffixes are not all
+	 * preceded by the same character (a suffix starting a document counts
+	 * as preceded by a character of its own).
+	 */
+	private List<RepeatInfo> findRepeats( int minLength, int minCount, int k ){
+		PriorityQueue<RepeatInfo> heap = new PriorityQueue<RepeatInfo>( 16, REPEAT_ORDER );
+		List<RepeatFrame> frames = new ArrayList<RepeatFrame>();
+		byte[] text = t.getString();
+		int level = 0;
+		
+		if( k <= 0 )
+			return new ArrayList<RepeatInfo>();
+		frames.add( new RepeatFrame() );
+		frames.get(0).init( t.getRoot(), 0 );
+		
+		while( level >= 0 ){
+			RepeatFrame f = frames.get(level);
+			SuffixTreeNode child = f.next;
+			
+			if( child != null ){
+				f.next = child.getSibling();
+				if( child.getChild() == null ){
+					int suffix = child.getSuffix();
+					boolean first = suffix == 0 || t.isTerminator(suffix - 1);
+					f.add( 1, suffix, first ? LEFT_DIVERSE : text[suffix - 1] & 0xff );
 				}
+				else {
+					// descend into the branch child
+					level++;
+					if( level == frames.size() )
+						frames.add( new RepeatFrame() );
+					frames.get(level).init( child,
+							f.depth + child.getRightLabel() - child.getLeftLabel() + 1 );
+				}
+				continue;
 			}
-			else
-				q.add(child);
 			
-			if( sibling != null )
-				q.add(sibling);
+			// all children of f are done
+			if( level > 0 ){
+				if( f.left == LEFT_DIVERSE && f.depth >= minLength && f.count >= minCount ){
+					RepeatInfo r = new RepeatInfo( f.depth, f.pos, f.count );
+					if( heap.size() < k )
+						heap.add( r );
+					else if( REPEAT_ORDER.compare( r, heap.peek() ) > 0 ){
+						heap.poll();
+						heap.add( r );
+					}
+				}
+				frames.get(level - 1).add( f.count, f.pos, f.left );
+			}
+			level--;
 		}
-		return t3Info;
+		
+		List<RepeatInfo> repeats = new ArrayList<RepeatInfo>( heap );
+		Collections.sort( repeats, Collections.reverseOrder(REPEAT_ORDER) );
+		return repeats;
 	}
 
 	/**
@@ -194,16 +694,160 @@ public class SuffixTreeAppl {
 	 * @return a Task4Info object
 	 */
 	public Task4Info traverseForLcs (int s1Length) {
+		long start = Stats.start();
 		Task4Info t4Result = new Task4Info();
 		
 		getLcs( t4Result, t.getRoot(), s1Length, 0 );
+		Stats.stop( Stats.Timer.LCS, start );
 		return t4Result;
 	}// end of traverseForLcs
+
+	/**
+	 * Finds a longest common substring as in traverseForLcs, with the
+	 * subtrees of the root's children and grandchildren traversed by
+	 * separate tasks of a ForkJoinPool.  The results of the tasks are
+	 * combined in the order of the sequential traversal, an earlier result
+	 * being kept unless a later one is longer, so that the result is the
+	 * same as that of traverseForLcs.
+	 * 
+	 * @param s1Length the length of s1
+	 * @param pool the pool whose threads carry out the traversal
+	 * 
+	 * @return a Task4Info object
+	 */
+	public Task4Info traverseForLcs (int s1Length, ForkJoinPool pool) {
+		long start = Stats.start();
+		Task4Info t4Result = pool.invoke( new LcsTask(t.getRoot(), s1Length, 0, 0) );
+		Stats.stop( Stats.Timer.LCS, start );
+		return t4Result;
+	}
+
+	/**
+	 * Finds embeddings of a longest common substring of the string s
+	 * represented by suffix tree t and a second string read from a stream,
+	 * as in traverseForLcs but without a generalised suffix tree: the
+	 * matching statistics of the stream against s (see MatchingStatistics)
+	 * are computed as it is read, so that only s and its suffix tree are
+	 * held in memory.  Of the longest common substrings, the one ending
+	 * earliest in the stream is chosen.
+	 * 
+	 * @param in the stream holding the second string, which is read to its end
+	 * 
+	 * @return a Task4Info object, with pos1 in s and pos2 in the stream
+	 * 
+	 * @throws IOException if the stream cannot be read
+	 */
+	public Task4Info streamForLcs (InputStream in) throws IOException {
+		long start = Stats.start();
+		Task4Info t4Result = new Task4Info();
+		MatchingStatistics ms = new MatchingStatistics( t );
+		byte[] buffer = new byte[STREAM_BUFFER];
+		int pos = 0, n;
+		
+		while( (n = in.read(buffer)) >= 0 )
+			for( int i = 0; i < n; i++, pos++ )
+				if( ms.add(buffer[i]) > t4Result.getLen() ){
+					t4Result.setLen( ms.getLength() );
+					t4Result.setPos1( ms.getPosition() );
+					t4Result.setPos2( pos - ms.getLength() + 1 );
+				}
+		Stats.stop( Stats.Timer.STREAM_LCS, start );
+		return t4Result;
+	}
+
+	/**
+	 * Task finding a longest common substring below a node, which forks a
+	 * task for each child while above PARALLEL_DEPTH.
+	 */
+	private class LcsTask extends RecursiveTask<Task4Info> {
+
+		private static final long serialVersionUID = 1L;
+
+		private SuffixTreeNode node;
+		private int s1Length;
+		private int currLen;
+		private int depth;
+
+		LcsTask( SuffixTreeNode nodeIn, int s1LengthIn, int currLenIn, int depthIn ){
+			node = nodeIn;
+			s1Length = s1LengthIn;
+			currLen = currLenIn;
+			depth = depthIn;
+		}
+
+		protected Task4Info compute(){
+			Task4Info best = new Task4Info();
+			if( depth >= PARALLEL_DEPTH ){
+				getLcs( best, node, s1Length, currLen );
+				return best;
+			}
+			
+			if( node.getLeafNodeString1() && node.getLeafNodeString2() && currLen > 0 ){
+				best.setLen( currLen );
+				best.setPos1( node.getLeafNodeNumString1() );
+				best.setPos2( node.getLeafNodeNumString2() - (s1Length + 1) );
+			}
+			
+			List<LcsTask> tasks = new ArrayList<LcsTask>();
+			for( SuffixTreeNode child = node.getChild(); child != null; child = child.getSibling() )
+				tasks.add( new LcsTask(child, s1Length,
+						currLen + child.getRightLabel() - child.getLeftLabel() + 1, depth + 1) );
+			invokeAll( tasks );
+			
+			for( LcsTask task : tasks ){
+				Task4Info r = task.join();
+				if( r.getLen() > best.getLen() )
+					best = r;
+			}
+			return best;
+		}
+	}
 	
-	private void getLcs( Task4Info t4Result, SuffixTreeNode current,  
-			int s1Length, int currLen){
+	/**
+	 * Traverses the subtree rooted at top in preorder, where the path label
+	 * of top has length topLen, updating t4Result with each node present in
+	 * both strings.  Rather than recursing, which a repetitive string could
+	 * make arbitrarily deep, an explicit stack holds the next sibling still
+	 * to be visited at each level, together with the path length of the
+	 * parent of that level.  Only nodes present in both strings can have
+	 * descendants that are, so the subtrees of other nodes are not entered.
+	 */
+	private void getLcs( Task4Info t4Result, SuffixTreeNode top,  
+			int s1Length, int topLen){
+		
+		ArrayDeque<SuffixTreeNode> stack = new ArrayDeque<SuffixTreeNode>();
+		IntList lengths = new IntList();
 		
-		SuffixTreeNode child = current.getChild();
+		if( checkLcs( t4Result, top, s1Length, topLen ) && top.getChild() != null ){
+			stack.push( top.getChild() );
+			lengths.add( topLen );
+		}
+		while( !stack.isEmpty() ){
+			SuffixTreeNode current = stack.pop();
+			int currLen = lengths.get( lengths.size() - 1 )
+					+ current.getRightLabel() - current.getLeftLabel() + 1;
+			
+			// the sibling is visited once the subtree of current is done
+			if( current.getSibling() != null )
+				stack.push( current.getSibling() );
+			else
+				lengths.removeLast();
+			
+			if( checkLcs( t4Result, current, s1Length, currLen ) && current.getChild() != null ){
+				stack.push( current.getChild() );
+				lengths.add( currLen );
+			}
+		}
+	}
+	
+	/**
+	 * Updates t4Result if a node, whose path label has length currLen, is
+	 * present in both strings and gives a longer common substring.
+	 * 
+	 * @return true if the node is present in both strings
+	 */
+	private boolean checkLcs( Task4Info t4Result, SuffixTreeNode current,
+			int s1Length, int currLen ){
 		
 		// We found a node that is present in both strings
 		if( current.getLeafNodeString1() && current.getLeafNodeString2() ){
@@ -214,16 +858,8 @@ public class SuffixTreeAppl {
 				t4Result.setPos1( current.getLeafNodeNumString1() );
 				t4Result.setPos2( current.getLeafNodeNumString2() - (s1Length + 1) );
 			}
+			return true;
 		}
-		
-		// Traverse all children of the current child and modify the current length
-		// of the path respectively
-		while( child != null ){
-			currLen += child.getRightLabel() - child.getLeftLabel() + 1;
-			getLcs( t4Result, child, s1Length, currLen );
-			currLen -= child.getRightLabel() - child.getLeftLabel() + 1;
-			
-			child = child.getSibling();
-		}
-	}// end of getLcs
+		return false;
+	}
 }
@@ -1,5 +1,7 @@
 package SuffixTreePackage;
 
+import java.util.BitSet;
+
 /**
  * Class for representing a suffix tree node.
  * 
@@ -18,11 +20,36 @@ package SuffixTreePackage;
  * Each leaf node contains the number of the suffix that it represents -
  * this number is -1 for branch nodes.
  *
+ * Branch nodes created by Ukkonen's algorithm also carry a suffix link
+ * to the node representing their path label minus its first character.
+ *
+ * Each node also records the number of leaves in its subtree, which is
+ * filled in by SuffixTree.getLeafCount.
+ *
+ * A branch node with more than INDEX_THRESHOLD children also has an
+ * index of its children by the first character of their edge labels (see
+ * ChildIndex), so that the child for a given character is found in a
+ * small array of first characters or, for a node of high fan-out, in O(1)
+ * time from a table, rather than by scanning the list of children.
+ * The index is maintained by findChild, linkChild and replaceChild during
+ * construction; setChild and addChild discard it.
+ *
+ * In a tree over many documents (see SuffixTree(byte[][])) a leaf whose
+ * edge label starts at a document terminator is kept in the list of
+ * children only: terminators are distinct from every character and from
+ * each other, so such a leaf is never found by its first character.
+ *
+ * The nodes created, and the work done in finding children, are counted
+ * in Stats.
+ *
  * Ela Hunt, Jan 01.  Modified by David Manlove, Jan 02 and Jan 09.
  */
 
 public class SuffixTreeNode {
 
+	/** Number of children above which a node is given an index of its children */
+	static final int INDEX_THRESHOLD = 8;
+
 	/** Head of list of children */
 	private SuffixTreeNode child;
 
@@ -40,6 +67,15 @@ public class SuffixTreeNode {
 	 */
 	private int suffix;
 
+	/** Suffix link of a branch node (null unless built by Ukkonen's algorithm) */
+	private SuffixTreeNode suffixLink;
+
+	/** Children indexed by first character of edge label (null unless more than INDEX_THRESHOLD children) */
+	private ChildIndex childIndex;
+
+	/** Number of leaves in the subtree rooted at this node (valid once computed by SuffixTree) */
+	private int leafCount;
+
         /** Boolean indicating whether there is a descendant leaf node whose suffix number starts 
          *  in the first string (valid for Longest Common Substring computations only)
          */
@@ -77,6 +113,7 @@ public class SuffixTreeNode {
 		leftLabel = left;
 		rightLabel = right;
 		suffix = suffNum;
+		Stats.increment(Stats.Counter.NODES_CREATED);
                 leafNodeString1 = false;
                 leafNodeString2 = false;
                 leafNodeNumString1 = 0;
@@ -95,6 +132,106 @@ public class SuffixTreeNode {
 		setChild(temp);
 	}
 
+	/**
+	 * Finds the child whose full edge label [x..y] satisfies s[x] == ch.
+	 * Unlike SuffixTree.searchList, termination characters are matched too.
+	 * 
+	 * @param s the string represented by the suffix tree
+	 * @param ch the character to match
+	 * @return the matching child (null if none exists)
+	 */
+	public SuffixTreeNode findChild(byte [] s, byte ch) {
+		return findChild(s, null, ch);
+	}
+
+	/**
+	 * Finds the child whose full edge label [x..y] satisfies s[x] == ch,
+	 * passing over children whose edge labels start at a terminator.
+	 * 
+	 * @param s the string represented by the suffix tree
+	 * @param terminators the positions of the terminators in s (null if none are virtual)
+	 * @param ch the character to match
+	 * @return the matching child (null if none exists)
+	 */
+	SuffixTreeNode findChild(byte [] s, BitSet terminators, byte ch) {
+		if (childIndex != null) {
+			Stats.increment(Stats.Counter.TABLE_LOOKUPS);
+			return childIndex.get(ch & 0xff);
+		}
+		SuffixTreeNode next = child;
+		int hops = 0;
+		while (next != null && (s[next.leftLabel] != ch
+				|| (terminators != null && terminators.get(next.leftLabel)))) {
+			next = next.sibling;
+			hops++;
+		}
+		Stats.add(Stats.Counter.SIBLING_HOPS, hops);
+		return next;
+	}
+
+	/**
+	 * Adds a node to the head of the list of children, building the index
+	 * of children once there are more than INDEX_THRESHOLD of them.
+	 * - assumes that no existing child's edge label starts with the same character
+	 * 
+	 * @param s the string represented by the suffix tree
+	 * @param c the new child
+	 */
+	void linkChild(byte [] s, SuffixTreeNode c) {
+		linkChild(s, null, c);
+	}
+
+	/**
+	 * Adds a node to the head of the list of children, as above, leaving
+	 * children whose edge labels start at a terminator out of the index.
+	 * 
+	 * @param s the string represented by the suffix tree
+	 * @param terminators the positions of the terminators in s (null if none are virtual)
+	 * @param c the new child
+	 */
+	void linkChild(byte [] s, BitSet terminators, SuffixTreeNode c) {
+		c.sibling = child;
+		child = c;
+		if (childIndex != null) {
+			if (terminators == null || !terminators.get(c.leftLabel))
+				childIndex.put(s[c.leftLabel] & 0xff, c);
+		}
+		else {
+			int count = 0;
+			for (SuffixTreeNode next = child; next != null; next = next.sibling)
+				count++;
+			if (count > INDEX_THRESHOLD) {
+				childIndex = new ChildIndex();
+				for (SuffixTreeNode next = child; next != null; next = next.sibling)
+					if (terminators == null || !terminators.get(next.leftLabel))
+						childIndex.put(s[next.leftLabel] & 0xff, next);
+			}
+		}
+	}
+
+	/**
+	 * Replaces a child by another node whose edge label starts with the same
+	 * character, in the list of children and in the index of children.
+	 * - assumes that newChild has already been given oldChild's sibling
+	 * - assumes that oldChild's edge label still starts with that character
+	 * 
+	 * @param s the string represented by the suffix tree
+	 * @param oldChild the child to be replaced
+	 * @param newChild the replacement
+	 */
+	void replaceChild(byte [] s, SuffixTreeNode oldChild, SuffixTreeNode newChild) {
+		if (childIndex != null)
+			childIndex.put(s[newChild.leftLabel] & 0xff, newChild);
+		if (child == oldChild) {
+			child = newChild;
+			return;
+		}
+		SuffixTreeNode prev = child;
+		while (prev.sibling != oldChild)
+			prev = prev.sibling;
+		prev.sibling = newChild;
+	}
+
 	/**
 	 * Gets the head of a linked list of children.
 	 * 
@@ -107,7 +244,21 @@ public class SuffixTreeNode {
 	 * 
 	 * @param c the head of a linked list of children
 	 */
-	public void setChild(SuffixTreeNode c) { child = c; }
+	public void setChild(SuffixTreeNode c) { child = c; childIndex = null; }
+
+	/**
+	 * Gets the index of children.
+	 * 
+	 * @return the index of children (null if the node has none)
+	 */
+	ChildIndex getChildIndex() { return childIndex; }
+
+	/**
+	 * Sets the index of children.
+	 * 
+	 * @param index the new index of children
+	 */
+	void setChildIndex(ChildIndex index) { childIndex = index; }
 
 	/**
 	 * Gets the sibling.
@@ -165,6 +316,20 @@ public class SuffixTreeNode {
 	 */
 	public void setSuffix(int s) { suffix = s; }
 
+	/**
+	 * Gets the suffix link.
+	 * 
+	 * @return the suffix link (null if none has been set)
+	 */
+	public SuffixTreeNode getSuffixLink() { return suffixLink; }
+
+	/**
+	 * Sets the suffix link.
+	 * 
+	 * @param node the new suffix link
+	 */
+	public void setSuffixLink(SuffixTreeNode node) { suffixLink = node; }
+
 	/**
 	 * Gets the value of leafNodeString1.
 	 * 
@@ -220,4 +385,18 @@ public class SuffixTreeNode {
 	 * @param i the boolean value
 	 */
 	public void setLeafNodeNumString2(int i) { leafNodeNumString2 = i; }
+
+	/**
+	 * Gets the number of leaves in the subtree rooted at this node.
+	 * 
+	 * @return the number of leaves
+	 */
+	public int getLeafCount() { return leafCount; }
+
+	/**
+	 * Sets the number of leaves in the subtree rooted at this node.
+	 * 
+	 * @param n the number of leaves
+	 */
+	public void setLeafCount(int n) { leafCount = n; }
 }
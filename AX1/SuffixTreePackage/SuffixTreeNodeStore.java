@@ -0,0 +1,55 @@
+package SuffixTreePackage;
+
+import java.util.BitSet;
+
+/**
+ * Class through which UkkonenBuilder builds a suffix tree of SuffixTreeNode
+ * objects (see NodeStore), the nodes themselves serving as their handles.
+ * 
+ * Children are linked and indexed by the methods of SuffixTreeNode, so the
+ * tree built is exactly as if the nodes had been manipulated directly.
+ */
+
+class SuffixTreeNodeStore implements NodeStore<SuffixTreeNode> {
+
+	/** Root node of the suffix tree being built. */
+	private SuffixTreeNode root;
+
+	/**
+	 * Instantiates a store for a tree whose root has been created.
+	 * 
+	 * @param rootNode the root node, which must have no children
+	 */
+	SuffixTreeNodeStore(SuffixTreeNode rootNode) {
+		root = rootNode;
+	}
+
+	public SuffixTreeNode getRoot() { return root; }
+
+	public SuffixTreeNode newNode(int left, int right, int suffix) {
+		return new SuffixTreeNode(null, null, left, right, suffix);
+	}
+
+	public SuffixTreeNode findChild(SuffixTreeNode v, byte [] s, BitSet terminators, byte ch) {
+		return v.findChild(s, terminators, ch);
+	}
+
+	public void addChild(SuffixTreeNode v, byte [] s, BitSet terminators, SuffixTreeNode c) {
+		v.linkChild(s, terminators, c);
+	}
+
+	public void replaceChild(SuffixTreeNode v, byte [] s, SuffixTreeNode oldChild, SuffixTreeNode newChild) {
+		newChild.setSibling(oldChild.getSibling());
+		v.replaceChild(s, oldChild, newChild);
+	}
+
+	public int getLeftLabel(SuffixTreeNode v) { return v.getLeftLabel(); }
+
+	public void setLeftLabel(SuffixTreeNode v, int left) { v.setLeftLabel(left); }
+
+	public int getRightLabel(SuffixTreeNode v) { return v.getRightLabel(); }
+
+	public SuffixTreeNode getSuffixLink(SuffixTreeNode v) { return v.getSuffixLink(); }
+
+	public void setSuffixLink(SuffixTreeNode v, SuffixTreeNode w) { v.setSuffixLink(w); }
+}
@@ -11,11 +11,14 @@ public class Task1Info {
 	/** Starting position of a matching occurrence.
 	 * (-1 if no such occurrence, otherwise >=0)
 	 */
-	private int pos;
+	private long pos;
 
 	/** Suffix tree node corresponding to the occurrence (you may find this useful). */
 	private SuffixTreeNode matchNode;
 
+	/** Number of occurrences, when counted as well (see TextIndex.searchAndCount). */
+	private long count;
+
 	/**
 	 * Default constructor.
 	 */
@@ -31,7 +34,7 @@ public class Task1Info {
 	 * @param p the starting position of a matching occurrence
 	 * @param node the suffix tree node corresponding to the occurrence
 	 */
-	public Task1Info(int p, SuffixTreeNode node)
+	public Task1Info(long p, SuffixTreeNode node)
 	{
 		pos = p;
 		matchNode = node;
@@ -42,14 +45,14 @@ public class Task1Info {
 	 * 
 	 * @return the starting position of a matching occurrence
 	 */
-	public int getPos() { return pos; }
+	public long getPos() { return pos; }
 
 	/**
 	 * Sets the starting position of a matching occurrence.
 	 * 
 	 * @param p the new starting position of a matching occurrence
 	 */
-	public void setPos(int p) { pos = p; }
+	public void setPos(long p) { pos = p; }
 
 	/**
 	 * Gets the suffix tree node corresponding to the occurrence.
@@ -65,4 +68,19 @@ public class Task1Info {
 	 */
 	public void setMatchNode(SuffixTreeNode node) { matchNode = node; }
 
+	/**
+	 * Gets the number of occurrences, as found by TextIndex.searchAndCount
+	 * (0 otherwise).
+	 * 
+	 * @return the number of occurrences
+	 */
+	public long getCount() { return count; }
+
+	/**
+	 * Sets the number of occurrences.
+	 * 
+	 * @param c the new number of occurrences
+	 */
+	public void setCount(long c) { count = c; }
+
 }
\ No newline at end of file
@@ -5,58 +5,101 @@ import java.util.*;
 /**
  * Class for representing information to be returned by the
  * allOccurrences method (Task 2).
+ *
+ * The starting positions are held in a LongList, so that collecting them
+ * allocates no object per occurrence; getPositions makes a linked list of
+ * them only when asked.  As an OccurrenceVisitor, a Task2Info collects
+ * the occurrences passed to it by TextIndex.forEachOccurrence.
+ *
  * David Manlove, Jan 03.  Modified by David Manlove, Jan 09.
  */
 
-public class Task2Info {
+public class Task2Info implements OccurrenceVisitor {
 
-	/** Linked list of starting positions. */
-	private LinkedList<Integer> positions;
+	/** List of starting positions. */
+	private LongList positions;
 
 	/**
 	 * Default constructor.
 	 */
 	public Task2Info()
 	{
-		positions = new LinkedList<Integer>();
+		positions = new LongList();
 	}
 
 	/**
 	 * Constructor with parameter.
-	 * 
+	 *
 	 * @param p the list of starting positions
 	 */
-	public Task2Info(int p)
+	public Task2Info(long p)
 	{
-		positions = new LinkedList<Integer>();
-		positions.addLast(new Integer(p));
+		positions = new LongList();
+		positions.add(p);
 	}
 
 	/**
-	 * Gets the starting positions.
-	 * 
+	 * Gets the starting positions as a linked list, which is built on each call.
+	 *
 	 * @return the starting positions
 	 */
-	public LinkedList<Integer> getPositions() { return positions; }
+	public LinkedList<Long> getPositions() {
+		LinkedList<Long> list = new LinkedList<Long>();
+		for (int i = 0; i < positions.size(); i++)
+			list.addLast(positions.get(i));
+		return list;
+	}
+
+	/**
+	 * Gets the starting positions as an array.
+	 *
+	 * @return the starting positions
+	 */
+	public long[] getPositionArray() { return positions.toArray(); }
+
+	/**
+	 * Gets the number of starting positions.
+	 *
+	 * @return the number of starting positions
+	 */
+	public int getCount() { return positions.size(); }
 
 	/**
 	 * Sets the starting positions.
-	 * 
+	 *
 	 * @param list the new positions
 	 */
-	public void setPositions(LinkedList<Integer> list) { positions = list; }
+	public void setPositions(LinkedList<Long> list) {
+		positions = new LongList(list.size());
+		addList(list);
+	}
 
 	/**
 	 * Adds an entry to the list of starting positions.
-	 * 
+	 *
 	 * @param p the entry to add to the list of starting positions.
 	 */
-	public void addEntry(int p) { positions.addLast(new Integer(p)); };
+	public void addEntry(long p) { positions.add(p); };
 
 	/**
 	 * Adds a list of starting positions to the existing list.
-	 * 
+	 *
 	 * @param list the list of starting positions to add
 	 */
-	public void addList(LinkedList<Integer> list) { positions.addAll(list); };
-}
\ No newline at end of file
+	public void addList(LinkedList<Long> list) {
+		for (long p : list)
+			positions.add(p);
+	};
+
+	/**
+	 * Adds the starting position of an occurrence (see OccurrenceVisitor).
+	 *
+	 * @param pos the starting position
+	 *
+	 * @return true, to receive all occurrences
+	 */
+	public boolean visit(long pos) {
+		positions.add(pos);
+		return true;
+	}
+}
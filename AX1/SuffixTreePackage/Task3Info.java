@@ -12,10 +12,10 @@ public class Task3Info {
 	private int len;
 
 	/** The starting position of an LRS in s1. */
-	private int pos1;
+	private long pos1;
 
 	/**The starting position of an LRS in s2. */
-	private int pos2; 
+	private long pos2; 
 
 	/**
 	 * Default constructor.
@@ -34,7 +34,7 @@ public class Task3Info {
 	 * @param p1 the starting position of an LRS in s1
 	 * @param p2 the starting position of an LRS in s2
 	 */
-	public Task3Info(int l, int p1, int p2)
+	public Task3Info(int l, long p1, long p2)
 	{
 		len = l;
 		pos1 = p1;
@@ -60,26 +60,26 @@ public class Task3Info {
 	 * 
 	 * @return the starting position of an LRS in s1
 	 */
-	public int getPos1() { return pos1; }
+	public long getPos1() { return pos1; }
 
 	/**
 	 * Sets the starting position of an LRS in s1.
 	 * 
 	 * @param p1 the new starting position of an LRS in s1
 	 */
-	public void setPos1(int p1) { pos1 = p1; }
+	public void setPos1(long p1) { pos1 = p1; }
 
 	/**
 	 * Gets the starting position of an LRS in s2.
 	 * 
 	 * @return the starting position of an LRS in s2
 	 */
-	public int getPos2() { return pos2; }
+	public long getPos2() { return pos2; }
 
 	/**
 	 * Sets the starting position of an LRS in s2.
 	 * 
 	 * @param p2 the new starting position of an LRS in s2
 	 */
-	public void setPos2(int p2) { pos2 = p2; }
+	public void setPos2(long p2) { pos2 = p2; }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package SuffixTreePackage;
+
+/**
+ * Interface for the searching applications of a suffix tree (Tasks 1 and
+ * 2), so that different index structures over the same string may be used
+ * interchangeably.  Indexes that can also find repeated or common
+ * substrings implement RepeatIndex or CommonSubstringIndex as well.
+ */
+
+public interface TextIndex {
+
+	/**
+	 * Searches the index for a target x (Task 1).
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchSuffixTree(byte[] x);
+
+	/**
+	 * Searches the index for all occurrences of target x (Task 2).
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task2Info object
+	 */
+	public Task2Info allOccurrences(byte[] x);
+
+	/**
+	 * Passes the starting position of each occurrence of target x to a
+	 * visitor as it is found, without storing the occurrences.  The
+	 * occurrences are visited in the same order on every call.
+	 * 
+	 * @param x the target string to search for
+	 * @param v the visitor, which may end the search early
+	 */
+	public void forEachOccurrence(byte[] x, OccurrenceVisitor v);
+
+	/**
+	 * Finds one page of the occurrences of target x: those after the
+	 * first offset, in the order of forEachOccurrence, up to limit of them.
+	 * 
+	 * @param x the target string to search for
+	 * @param offset the number of occurrences to pass over
+	 * @param limit the maximum number of occurrences to return
+	 * 
+	 * @return the starting positions of the occurrences in the page
+	 */
+	public long[] allOccurrences(byte[] x, long offset, int limit);
+
+	/**
+	 * Counts the occurrences of target x, without listing them.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return the number of occurrences of x
+	 */
+	public long countOccurrences(byte[] x);
+
+	/**
+	 * Searches the index for a target x as in searchSuffixTree, also
+	 * storing the number of occurrences of x in Task1Info.count; both come
+	 * from the one search.
+	 * 
+	 * @param x the target string to search for
+	 * 
+	 * @return a Task1Info object
+	 */
+	public Task1Info searchAndCount(byte[] x);
+}
@@ -0,0 +1,206 @@
+package SuffixTreePackage;
+
+import java.util.BitSet;
+
+/**
+ * Class implementing Ukkonen's linear-time suffix tree construction
+ * algorithm.  The tree is built through a NodeStore, so that the same
+ * implementation builds the trees of SuffixTreeNode objects of SuffixTree
+ * and OnlineSuffixTree (see SuffixTreeNodeStore).  The builder is generic
+ * in the type of the nodes, so that a tree of objects is built through
+ * the objects themselves, with no lookup of nodes by number; the trees
+ * held in arrays of FlatSuffixTree are built by IntUkkonenBuilder, whose
+ * extend() follows the same steps on int handles.
+ * 
+ * The string is processed one position at a time by extend(), so that
+ * after extend(i) the tree is the implicit suffix tree of s[0..i].  Once
+ * a unique termination character has been added, every suffix ends at a
+ * leaf and the tree has exactly the shape produced by the naive
+ * construction algorithm (although the order of children may differ).
+ * 
+ * Leaves are created with right label leafEnd; while the tree is being
+ * extended the length of a leaf edge is taken to run up to the current
+ * position only.
+ * 
+ * A leaf end of Integer.MAX_VALUE leaves the leaves open, so that the tree
+ * may go on being extended as characters are appended to s (see
+ * OnlineSuffixTree); the string may then be moved to a larger array with
+ * setString between calls of extend().
+ * 
+ * If a set of terminator positions is given, the characters at those
+ * positions are treated as distinct from every other character and from
+ * each other, whatever bytes s holds there.  Each terminator therefore
+ * makes the tree explicit, so that every suffix ending at it has a leaf.
+ */
+
+class UkkonenBuilder<N> {
+
+	/** Store holding the nodes of the suffix tree being built. */
+	private NodeStore<N> store;
+
+	/** Root node of the suffix tree being built. */
+	private N root;
+
+	/** String (byte array) corresponding to the suffix tree. */
+	private byte [] s;
+
+	/** Right label given to every leaf node created. */
+	private int leafEnd;
+
+	/** Positions of virtual terminators in s (null if there are none). */
+	private BitSet terminators;
+
+	/** The active point: node, position in s of first character of active edge, and length. */
+	private N activeNode;
+	private int activeEdge;
+	private int activeLength;
+
+	/** Number of suffixes still to be inserted explicitly. */
+	private int remainder;
+
+	/** Number of nodes created so far. */
+	private int nodeCount;
+
+	/**
+	 * Instantiates a new builder.
+	 * 
+	 * @param nodes the store holding an empty suffix tree
+	 * @param sInput the string whose suffix tree is to be built
+	 * @param end the right label to be given to leaf nodes
+	 */
+	UkkonenBuilder(NodeStore<N> nodes, byte [] sInput, int end) {
+		this(nodes, sInput, end, null);
+	}
+
+	/**
+	 * Instantiates a new builder for a string containing virtual terminators.
+	 * 
+	 * @param nodes the store holding an empty suffix tree
+	 * @param sInput the string whose suffix tree is to be built
+	 * @param end the right label to be given to leaf nodes
+	 * @param terms the positions of the terminators in sInput (null if there are none)
+	 */
+	UkkonenBuilder(NodeStore<N> nodes, byte [] sInput, int end, BitSet terms) {
+		store = nodes;
+		root = store.getRoot();
+		s = sInput;
+		leafEnd = end;
+		terminators = terms;
+		activeNode = root;
+		activeEdge = 0;
+		activeLength = 0;
+		remainder = 0;
+		nodeCount = 0;
+	}
+
+	/**
+	 * Extends the tree with the character at position i of s.
+	 * - assumes that positions 0..i-1 have already been added
+	 * 
+	 * @param i the position of the character to add
+	 */
+	void extend(int i) {
+		N lastNewNode = null;
+		N next;
+		remainder++;
+
+		while (remainder > 0) {
+			if (activeLength == 0)
+				activeEdge = i;
+
+			if (terminators != null && terminators.get(activeEdge))
+				next = null;  // no edge starts with a terminator that is yet to be added
+			else
+				next = store.findChild(activeNode, s, terminators, s[activeEdge]);
+
+			if (next == null) {
+				// no edge starts with the active character, so add a new leaf here
+				store.addChild(activeNode, s, terminators, store.newNode(i, leafEnd, i - remainder + 1));
+				nodeCount++;
+				if (lastNewNode != null) {
+					store.setSuffixLink(lastNewNode, activeNode);
+					lastNewNode = null;
+				}
+			}
+			else {
+				int left = store.getLeftLabel(next);
+				int len = Math.min(store.getRightLabel(next), i) - left + 1;
+				if (activeLength >= len) {
+					// walk down the edge (skip/count trick) and try again from next
+					activeEdge += len;
+					activeLength -= len;
+					activeNode = next;
+					Stats.increment(Stats.Counter.EDGES_SKIPPED);
+					continue;
+				}
+
+				if (sameCharacter(left + activeLength, i)) {
+					// s[i] is already present below the active point, so this phase ends
+					if (lastNewNode != null && activeNode != root) {
+						store.setSuffixLink(lastNewNode, activeNode);
+						lastNewNode = null;
+					}
+					activeLength++;
+					break;
+				}
+
+				/* split the edge above next at the active point: the new branch node
+				 * takes next's place in the list of children of activeNode, with
+				 * next and a new leaf for suffix i-remainder+1 as its two children */
+				N split = store.newNode(left, left + activeLength - 1, -1);
+				store.setSuffixLink(split, root);
+				store.replaceChild(activeNode, s, next, split);
+				store.setLeftLabel(next, left + activeLength);
+				store.addChild(split, s, terminators, store.newNode(i, leafEnd, i - remainder + 1));
+				store.addChild(split, s, terminators, next);
+				nodeCount += 2;
+				Stats.increment(Stats.Counter.SPLITS);
+
+				if (lastNewNode != null)
+					store.setSuffixLink(lastNewNode, split);
+				lastNewNode = split;
+			}
+
+			remainder--;
+			if (activeNode == root && activeLength > 0) {
+				activeLength--;
+				activeEdge = i - remainder + 1;
+			}
+			else if (activeNode != root) {
+				activeNode = store.getSuffixLink(activeNode);
+				Stats.increment(Stats.Counter.SUFFIX_LINKS_FOLLOWED);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of suffixes added so far that do not yet end at a
+	 * leaf: those starting in the last getRemainder() positions added.
+	 * 
+	 * @return the number of suffixes still to be inserted explicitly
+	 */
+	int getRemainder() { return remainder; }
+
+	/**
+	 * Sets the array holding the string, which must agree with the previous
+	 * array in every position added so far.
+	 * 
+	 * @param sInput the array holding the string
+	 */
+	void setString(byte [] sInput) { s = sInput; }
+
+	/**
+	 * Gets the number of nodes created so far (excluding the root).
+	 * 
+	 * @return the number of nodes created
+	 */
+	int getNodeCount() { return nodeCount; }
+
+	/**
+	 * Are the characters at positions p and q equal?  A terminator is equal
+	 * to no character at any other position.
+	 */
+	private boolean sameCharacter(int p, int q) {
+		return s[p] == s[q] && (terminators == null || (!terminators.get(p) && !terminators.get(q)));
+	}
+}
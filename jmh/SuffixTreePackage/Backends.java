@@ -0,0 +1,82 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+
+/**
+ * Class building the index structures compared by the benchmarks, under
+ * the names Main uses for them with -index:
+ * 
+ * tree      the SuffixTree built by Ukkonen's algorithm
+ * flat      a FlatSuffixTree
+ * stored    a FlatSuffixTree saved to an index file and mapped back
+ * array     a SuffixArray with its LCP array
+ * fm        an FMIndex sampling every 32nd suffix
+ * external  an ExternalSuffixArray built on disk from a file of the text
+ */
+
+final class Backends {
+
+	private Backends() {
+	}
+
+	/**
+	 * Builds an index of one string.
+	 * 
+	 * @param backend the kind of index
+	 * @param text the string indexed
+	 * 
+	 * @return the index
+	 * 
+	 * @throws IOException if an index file cannot be written or read
+	 * @throws IllegalArgumentException if there is no such kind of index
+	 */
+	static TextIndex open(String backend, byte [] text) throws IOException {
+		switch (backend) {
+			case "tree":
+				return new SuffixTreeAppl(new SuffixTree(text, BuildMethod.UKKONEN));
+			case "flat":
+				return new FlatSuffixTreeAppl(new FlatSuffixTree(text));
+			case "stored": {
+				String fileName = Corpora.beside(Corpora.write(text), ".stix");
+				IndexFile.save(new FlatSuffixTree(text), fileName);
+				return new FlatSuffixTreeAppl(IndexFile.load(fileName));
+			}
+			case "array":
+				return new SuffixArrayAppl(new SuffixArray(text));
+			case "fm":
+				return new FMIndexAppl(new FMIndex(text));
+			case "external": {
+				String textFile = Corpora.write(text), indexFile = Corpora.beside(textFile, ".sxsa");
+				ExternalSuffixArray.build(textFile, indexFile);
+				return new ExternalSuffixArrayAppl(ExternalSuffixArray.open(textFile, indexFile));
+			}
+			default:
+				throw new IllegalArgumentException("No index " + backend);
+		}
+	}
+
+	/**
+	 * Builds a generalised index of two strings.
+	 * 
+	 * @param backend the kind of index: tree, flat or array
+	 * @param s1 the first string
+	 * @param s2 the second string
+	 * 
+	 * @return the index
+	 * 
+	 * @throws IllegalArgumentException if there is no such kind of
+	 * generalised index
+	 */
+	static CommonSubstringIndex open(String backend, byte [] s1, byte [] s2) {
+		switch (backend) {
+			case "tree":
+				return new SuffixTreeAppl(new SuffixTree(s1, s2, BuildMethod.UKKONEN));
+			case "flat":
+				return new FlatSuffixTreeAppl(new FlatSuffixTree(s1, s2));
+			case "array":
+				return new SuffixArrayAppl(new SuffixArray(s1, s2));
+			default:
+				throw new IllegalArgumentException("No generalised index " + backend);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package SuffixTreePackage;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of finding children by their first character, on random
+ * strings over alphabets of different sizes: the nodes near the root of
+ * their suffix trees have about as many children as there are letters,
+ * so that each way of indexing the children of a node (see
+ * SuffixTreeNode) is exercised in turn.  Measures Ukkonen's algorithm,
+ * which finds a child at every step, and searching the tree built.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ChildIndexBenchmark {
+
+	/** Number of targets searched for by each search operation. */
+	static final int TARGETS = 4096;
+
+	@Param({"4", "16", "48", "128", "254"})
+	public int alphabet;
+
+	@Param({"262144"})
+	public int size;
+
+	private byte [] text;
+
+	private SuffixTreeAppl tree;
+
+	private byte [][] targets;
+
+	@Setup
+	public void setUp() {
+		text = Corpora.alphabet(alphabet, size);
+		tree = new SuffixTreeAppl(new SuffixTree(text, BuildMethod.UKKONEN));
+		targets = Corpora.targets(text, TARGETS);
+	}
+
+	@Benchmark
+	public SuffixTree build() {
+		return new SuffixTree(text, BuildMethod.UKKONEN);
+	}
+
+	@Benchmark
+	public long search() {
+		long found = 0;
+		for (byte [] x : targets)
+			found += tree.searchSuffixTree(x).getPos();
+		return found;
+	}
+}
@@ -0,0 +1,64 @@
+package SuffixTreePackage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of finding a longest common substring of two strings (Task 4)
+ * with each kind of generalised index, and by matching statistics over
+ * a suffix tree of the first string, as Main does with "-lcs stream".
+ * The strings are text1 and text2 for the text corpus, otherwise the two
+ * halves of the corpus.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CommonSubstringBenchmark {
+
+	@Param({"text", "dna", "repetitive"})
+	public String corpus;
+
+	@Param({"65536"})
+	public int size;
+
+	@Param({"tree", "flat", "array", "stream"})
+	public String backend;
+
+	private CommonSubstringIndex index;
+
+	private SuffixTreeAppl tree;
+
+	private byte [][] strings;
+
+	@Setup
+	public void setUp() throws IOException {
+		strings = Corpora.pair(corpus, size);
+		if (backend.equals("stream"))
+			tree = new SuffixTreeAppl(new SuffixTree(strings[0], BuildMethod.UKKONEN));
+		else
+			index = Backends.open(backend, strings[0], strings[1]);
+	}
+
+	@Benchmark
+	public Task4Info lcs() throws IOException {
+		if (tree != null)
+			return tree.streamForLcs(new ByteArrayInputStream(strings[1]));
+		return index.traverseForLcs(strings[0].length);
+	}
+}
@@ -0,0 +1,74 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of building each kind of index of a corpus: the suffix tree
+ * by each construction algorithm, the flat suffix tree, the suffix array,
+ * the FM-index and the external suffix array (which is written to disk).
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ConstructionBenchmark {
+
+	@Param({"text1", "random", "dna", "repetitive", "fibonacci"})
+	public String corpus;
+
+	@Param({"65536"})
+	public int size;
+
+	@Param({"naive", "ukkonen", "parallel", "flat", "array", "fm", "external"})
+	public String backend;
+
+	private byte [] text;
+
+	private String textFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		text = Corpora.get(corpus, size);
+		textFile = Corpora.write(text);
+	}
+
+	@Benchmark
+	public Object build() throws IOException {
+		switch (backend) {
+			case "naive":
+				return new SuffixTree(text, BuildMethod.NAIVE);
+			case "ukkonen":
+				return new SuffixTree(text, BuildMethod.UKKONEN);
+			case "parallel":
+				return new SuffixTree(text, BuildMethod.PARALLEL);
+			case "flat":
+				return new FlatSuffixTree(text);
+			case "array":
+				return new SuffixArray(text);
+			case "fm":
+				return new FMIndex(text);
+			case "external": {
+				String indexFile = Corpora.beside(textFile, ".sxsa");
+				ExternalSuffixArray.build(textFile, indexFile);
+				return indexFile;
+			}
+			default:
+				throw new IllegalArgumentException("No index " + backend);
+		}
+	}
+}
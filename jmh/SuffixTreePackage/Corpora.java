@@ -0,0 +1,196 @@
+package SuffixTreePackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class giving the strings indexed by the benchmarks.
+ * 
+ * The corpora are text1.txt and text2.txt of AX1, and generated strings
+ * of a given size: random bytes, a random 4-letter DNA-like string, a
+ * highly repetitive string (a short random block repeated), a Fibonacci
+ * string, which has the most repeated structure and is the worst case of
+ * the naive construction, and lines resembling a server log.  Generated corpora use a fixed
+ * seed, so that runs may be compared.
+ */
+
+final class Corpora {
+
+	/** Length of the target strings searched for. */
+	static final int TARGET_LENGTH = 8;
+
+	/** Seed for generated corpora and targets. */
+	static final long SEED = 42;
+
+	private Corpora() {
+	}
+
+	/**
+	 * Gets a corpus: the contents of text1.txt or text2.txt, or a generated
+	 * string of the given size.
+	 * 
+	 * @param name the name of the corpus
+	 * @param size the length of a generated corpus
+	 * 
+	 * @return the corpus
+	 * 
+	 * @throws IOException if a text file cannot be read
+	 * @throws IllegalArgumentException if there is no such corpus
+	 */
+	static byte [] get(String name, int size) throws IOException {
+		if (name.equals("text1") || name.equals("text2")) {
+			Path p = Paths.get("AX1", name + ".txt");
+			return Files.readAllBytes(Files.exists(p) ? p : Paths.get(name + ".txt"));
+		}
+
+		Random random = new Random(SEED);
+		byte [] s = new byte[size];
+		if (name.equals("random")) {
+			// bytes other than the termination characters '$' and '#'
+			for (int i = 0; i < size; i++)
+				do
+					s[i] = (byte) random.nextInt(256);
+				while (s[i] == (byte) '$' || s[i] == (byte) '#');
+		}
+		else if (name.equals("dna")) {
+			byte [] bases = "ACGT".getBytes();
+			for (int i = 0; i < size; i++)
+				s[i] = bases[random.nextInt(4)];
+		}
+		else if (name.equals("repetitive")) {
+			// a block of 64 random letters repeated, with one letter in a thousand changed
+			for (int i = 0; i < size; i++)
+				s[i] = i < 64 ? (byte) ('a' + random.nextInt(26)) : s[i - 64];
+			for (int i = 0; i < size / 1000; i++)
+				s[random.nextInt(size)] = (byte) ('a' + random.nextInt(26));
+		}
+		else if (name.equals("fibonacci")) {
+			// the Fibonacci string: f(1) = "b", f(2) = "a", f(k) = f(k-1) f(k-2)
+			StringBuilder prev = new StringBuilder("b"), cur = new StringBuilder("a");
+			while (cur.length() < size) {
+				StringBuilder next = new StringBuilder(cur).append(prev);
+				prev = cur;
+				cur = next;
+			}
+			s = cur.substring(0, size).getBytes();
+		}
+		else if (name.equals("log")) {
+			// timestamped lines from a few components, with varying numbers in the messages
+			String [] levels = {"INFO", "WARN", "DEBUG", "ERROR"};
+			String [] components = {"http.server", "db.pool", "auth", "scheduler", "cache"};
+			String [] messages = {"request completed in %d ms", "connection %d acquired",
+					"user %d logged in", "job %d started", "miss for key k%d", "timeout after %d ms"};
+			StringBuilder b = new StringBuilder(size + 128);
+			while (b.length() < size)
+				b.append(String.format("2024-03-%02d %02d:%02d:%02d.%03d %s [%s] ", 1 + random.nextInt(28),
+						random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000),
+						levels[random.nextInt(levels.length)], components[random.nextInt(components.length)]))
+						.append(String.format(messages[random.nextInt(messages.length)], random.nextInt(100000)))
+						.append('\n');
+			s = b.substring(0, size).getBytes();
+		}
+		else
+			throw new IllegalArgumentException("No corpus " + name);
+		return s;
+	}
+
+	/**
+	 * Generates a random string over an alphabet of k characters, so that
+	 * the nodes near the root of its suffix tree have up to k children.
+	 * 
+	 * @param k the size of the alphabet, from 1 to 254
+	 * @param size the length of the string
+	 * 
+	 * @return the string
+	 */
+	static byte [] alphabet(int k, int size) {
+		// the alphabet is the first k bytes other than '$' and '#'
+		byte [] letters = new byte[k];
+		for (int b = 0, n = 0; n < k; b++)
+			if (b != '$' && b != '#')
+				letters[n++] = (byte) b;
+
+		Random random = new Random(SEED);
+		byte [] s = new byte[size];
+		for (int i = 0; i < size; i++)
+			s[i] = letters[random.nextInt(k)];
+		return s;
+	}
+
+	/**
+	 * Gets the two strings of a Task 4 benchmark: text1 and text2 for the
+	 * text corpora, otherwise the two halves of the corpus.
+	 * 
+	 * @param name the name of the corpus
+	 * @param size the length of a generated corpus
+	 * 
+	 * @return the two strings
+	 * 
+	 * @throws IOException if a text file cannot be read
+	 */
+	static byte [][] pair(String name, int size) throws IOException {
+		if (name.startsWith("text"))
+			return new byte [][] {get("text1", 0), get("text2", 0)};
+		byte [] s = get(name, size);
+		return new byte [][] {Arrays.copyOfRange(s, 0, s.length / 2), Arrays.copyOfRange(s, s.length / 2, s.length)};
+	}
+
+	/**
+	 * Chooses targets for searching: substrings of the text at random
+	 * positions, every fourth of them with its last character changed so
+	 * that some searches fail.
+	 * 
+	 * @param text the text searched
+	 * @param count the number of targets
+	 * 
+	 * @return the targets
+	 */
+	static byte [][] targets(byte [] text, int count) {
+		Random random = new Random(SEED);
+		byte [][] targets = new byte[count][];
+		int len = Math.min(TARGET_LENGTH, text.length);
+
+		for (int i = 0; i < count; i++) {
+			int p = random.nextInt(text.length - len + 1);
+			targets[i] = Arrays.copyOfRange(text, p, p + len);
+			if (i % 4 == 3 && len > 0)
+				targets[i][len - 1] = (byte) random.nextInt(256);
+		}
+		return targets;
+	}
+
+	/**
+	 * Writes a corpus to a temporary file, deleted when the JVM exits.
+	 * 
+	 * @param text the corpus
+	 * 
+	 * @return the name of the file
+	 * 
+	 * @throws IOException if the file cannot be written
+	 */
+	static String write(byte [] text) throws IOException {
+		Path p = Files.createTempFile("corpus", ".txt");
+		p.toFile().deleteOnExit();
+		Files.write(p, text);
+		return p.toString();
+	}
+
+	/**
+	 * Names a temporary file beside another, deleted when the JVM exits.
+	 * 
+	 * @param fileName the name of the other file
+	 * @param suffix the extension of the new file
+	 * 
+	 * @return the name of the new file
+	 */
+	static String beside(String fileName, String suffix) {
+		File f = new File(fileName + suffix);
+		f.deleteOnExit();
+		return f.getPath();
+	}
+}
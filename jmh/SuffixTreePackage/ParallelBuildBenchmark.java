@@ -0,0 +1,53 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of building the suffix tree of a large corpus by Ukkonen's
+ * algorithm and by the parallel construction from the suffix array, at
+ * sizes above SuffixTree.PARALLEL_THRESHOLD, below which the parallel
+ * construction is Ukkonen's algorithm.  The naive algorithm is left to
+ * ConstructionBenchmark, being too slow at these sizes.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ParallelBuildBenchmark {
+
+	@Param({"log", "dna", "random", "repetitive"})
+	public String corpus;
+
+	@Param({"262144", "2097152"})
+	public int size;
+
+	@Param({"ukkonen", "parallel"})
+	public String method;
+
+	private byte [] text;
+
+	@Setup
+	public void setUp() throws IOException {
+		text = Corpora.get(corpus, size);
+	}
+
+	@Benchmark
+	public SuffixTree build() {
+		return new SuffixTree(text, method.equals("parallel") ? BuildMethod.PARALLEL : BuildMethod.UKKONEN);
+	}
+}
@@ -0,0 +1,51 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of finding a longest repeated substring (Task 3) in each
+ * kind of index that supports it.  The FM-index keeps no LCP
+ * information, so it is not among them.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RepeatBenchmark {
+
+	@Param({"text1", "dna", "repetitive"})
+	public String corpus;
+
+	@Param({"65536"})
+	public int size;
+
+	@Param({"tree", "flat", "stored", "array", "external"})
+	public String backend;
+
+	private RepeatIndex index;
+
+	@Setup
+	public void setUp() throws IOException {
+		index = (RepeatIndex) Backends.open(backend, Corpora.get(corpus, size));
+	}
+
+	@Benchmark
+	public Task3Info lrs() {
+		return index.traverseForLrs();
+	}
+}
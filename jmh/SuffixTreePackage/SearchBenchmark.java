@@ -0,0 +1,70 @@
+package SuffixTreePackage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of searching (Task 1), listing all occurrences (Task 2) and
+ * counting occurrences in each kind of index.  Each operation searches
+ * for the next of a fixed set of targets, a quarter of which do not occur.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SearchBenchmark {
+
+	/** Number of targets, a power of two. */
+	static final int TARGETS = 4096;
+
+	@Param({"text1", "dna", "repetitive"})
+	public String corpus;
+
+	@Param({"65536"})
+	public int size;
+
+	@Param({"tree", "flat", "stored", "array", "fm", "external"})
+	public String backend;
+
+	private TextIndex index;
+
+	private byte [][] targets;
+
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		byte [] text = Corpora.get(corpus, size);
+		index = Backends.open(backend, text);
+		targets = Corpora.targets(text, TARGETS);
+	}
+
+	@Benchmark
+	public Task1Info search() {
+		return index.searchSuffixTree(targets[next++ & (TARGETS - 1)]);
+	}
+
+	@Benchmark
+	public Task2Info occurrences() {
+		return index.allOccurrences(targets[next++ & (TARGETS - 1)]);
+	}
+
+	@Benchmark
+	public long count() {
+		return index.countOccurrences(targets[next++ & (TARGETS - 1)]);
+	}
+}